@@ -0,0 +1,22 @@
+package com.bolezni.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Таймаут асинхронных ответов MVC. Единственный такой ответ - потоковый импорт пользователей,
+ * без явного значения его обрывал бы таймаут контейнера посреди NDJSON.
+ */
+@Configuration
+public class AsyncRequestConfig implements WebMvcConfigurer {
+
+    @Value("${app.user-import.request-timeout-ms:3600000}")
+    private long requestTimeoutMs;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setDefaultTimeout(requestTimeoutMs);
+    }
+}
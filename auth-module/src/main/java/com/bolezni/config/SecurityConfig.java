@@ -1,14 +1,24 @@
 package com.bolezni.config;
 
 import com.bolezni.repository.UserRepository;
+import com.bolezni.security.ApiKeyService;
+import com.bolezni.security.BcryptCostCalibrator;
+import com.bolezni.security.BoundedPasswordEncoder;
+import com.bolezni.security.CachingUserDetailsService;
 import com.bolezni.security.CustomUserDetailsService;
+import com.bolezni.security.SecurityVersionService;
+import com.bolezni.security.filter.ApiKeyFilter;
 import com.bolezni.security.filter.EmailVerificationFilter;
 import com.bolezni.security.jwt.JwtFilter;
 import com.bolezni.security.jwt.JwtService;
+import com.bolezni.security.jwt.TokenRevocationService;
 import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -19,8 +29,9 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
@@ -33,8 +44,11 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Configuration
@@ -47,15 +61,79 @@ public class SecurityConfig {
     private final OAuth2UserService<OAuth2UserRequest, OAuth2User> oAuth2UserService;
     private final JwtService jwtService;
     private final EmailVerificationFilter emailFilter;
+    private final SecurityVersionService securityVersionService;
+    private final TokenRevocationService tokenRevocationService;
+    private final MeterRegistry meterRegistry;
+    private final ApiKeyService apiKeyService;
+
+    @Value("${application.security.user-details-cache.max-size:10000}")
+    private long userDetailsCacheMaxSize;
+
+    @Value("${application.security.user-details-cache.ttl-seconds:300}")
+    private long userDetailsCacheTtlSeconds;
+
+    @Value("${application.security.password-hashing.threads:0}")
+    private int passwordHashingThreads;
+
+    @Value("${application.security.password-hashing.queue-capacity:64}")
+    private int passwordHashingQueueCapacity;
+
+    @Value("${application.security.password-hashing.max-wait-ms:3000}")
+    private long passwordHashingMaxWaitMs;
+
+    @Value("${application.security.password-hashing.encoder:bcrypt}")
+    private String passwordEncoderId;
+
+    // 0 - подобрать cost при старте под target-ms
+    @Value("${application.security.password-hashing.bcrypt-cost:0}")
+    private int bcryptCost;
+
+    @Value("${application.security.password-hashing.target-ms:250}")
+    private long passwordHashingTargetMs;
+
+    @Value("${application.security.password-hashing.min-cost:10}")
+    private int bcryptMinCost;
+
+    @Value("${application.security.password-hashing.max-cost:14}")
+    private int bcryptMaxCost;
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(10);
+        int threads = passwordHashingThreads > 0
+                ? passwordHashingThreads
+                : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(
+                delegatingPasswordEncoder(),
+                threads,
+                passwordHashingQueueCapacity,
+                Duration.ofMillis(passwordHashingMaxWaitMs),
+                meterRegistry
+        );
+    }
+
+    // Хэши хранятся с префиксом {id}, старые хэши без префикса проверяются как BCrypt
+    private PasswordEncoder delegatingPasswordEncoder() {
+        int cost = bcryptCost > 0
+                ? bcryptCost
+                : BcryptCostCalibrator.calibrate(Duration.ofMillis(passwordHashingTargetMs), bcryptMinCost, bcryptMaxCost);
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(cost);
+
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put("bcrypt", bcrypt);
+        encoders.put("argon2", Argon2PasswordEncoder.defaultsForSpringSecurity_v5_8());
+
+        if (!encoders.containsKey(passwordEncoderId)) {
+            throw new IllegalStateException("Unknown password encoder: " + passwordEncoderId);
+        }
+
+        DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder(passwordEncoderId, encoders);
+        delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegating;
     }
 
     @Bean
     public JwtFilter jwtFilter() {
-        return new JwtFilter(jwtService, userDetailsService());
+        return new JwtFilter(jwtService, cachingUserDetailsService(), securityVersionService, tokenRevocationService);
     }
 
     @Bean
@@ -78,20 +156,34 @@ public class SecurityConfig {
                         .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
                 )
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(new ApiKeyFilter(apiKeyService), UsernamePasswordAuthenticationFilter.class)
                 .addFilterBefore(jwtFilter(), UsernamePasswordAuthenticationFilter.class)
                 .addFilterAfter(emailFilter, JwtFilter.class)
                 .build();
     }
 
     @Bean
-    public UserDetailsService userDetailsService() {
+    @Primary
+    public CustomUserDetailsService userDetailsService() {
         return new CustomUserDetailsService(userRepository);
     }
 
+    @Bean
+    public CachingUserDetailsService cachingUserDetailsService() {
+        return new CachingUserDetailsService(
+                userDetailsService(),
+                userDetailsCacheMaxSize,
+                Duration.ofSeconds(userDetailsCacheTtlSeconds),
+                meterRegistry
+        );
+    }
+
     @Bean
     public AuthenticationProvider authProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService());
         authProvider.setPasswordEncoder(passwordEncoder());
+        // После успешного входа устаревший хэш (другой cost или алгоритм) пересчитывается и сохраняется
+        authProvider.setUserDetailsPasswordService(userDetailsService());
         return authProvider;
     }
 
@@ -0,0 +1,60 @@
+package com.bolezni.config;
+
+import com.bolezni.repository.EmailVerificationTokenRepository;
+import com.bolezni.repository.UserRepository;
+import com.bolezni.service.verification.InMemoryVerificationTokenStore;
+import com.bolezni.service.verification.JpaVerificationTokenStore;
+import com.bolezni.service.verification.VerificationTokenStore;
+import com.bolezni.service.verification.WriteBehindVerificationTokenStore;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+
+@Configuration
+public class VerificationStoreConfig {
+
+    @Value("${app.verification.expiration-minutes:15}")
+    private int expirationMinutes;
+
+    @Value("${app.verification.wheel-tick-ms:1000}")
+    private long wheelTickMs;
+
+    @Bean
+    @ConditionalOnProperty(name = "app.verification.store", havingValue = "jpa", matchIfMissing = true)
+    public VerificationTokenStore jpaVerificationTokenStore(EmailVerificationTokenRepository emailTokenRepository,
+                                                            UserRepository userRepository,
+                                                            EntityManager entityManager) {
+        return new JpaVerificationTokenStore(emailTokenRepository, userRepository, entityManager);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.verification.store", havingValue = "memory")
+    public VerificationTokenStore inMemoryVerificationTokenStore() {
+        return inMemoryStore();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.verification.store", havingValue = "write-behind")
+    public VerificationTokenStore writeBehindVerificationTokenStore(EmailVerificationTokenRepository emailTokenRepository,
+                                                                    UserRepository userRepository,
+                                                                    EntityManager entityManager,
+                                                                    PlatformTransactionManager transactionManager) {
+        return new WriteBehindVerificationTokenStore(
+                inMemoryStore(),
+                new JpaVerificationTokenStore(emailTokenRepository, userRepository, entityManager),
+                transactionManager
+        );
+    }
+
+    private InMemoryVerificationTokenStore inMemoryStore() {
+        return new InMemoryVerificationTokenStore(
+                Duration.ofMillis(wheelTickMs),
+                Duration.ofMinutes(expirationMinutes)
+        );
+    }
+}
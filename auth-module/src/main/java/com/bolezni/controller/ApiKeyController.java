@@ -0,0 +1,54 @@
+package com.bolezni.controller;
+
+import com.bolezni.dto.ApiKeyCreateRequest;
+import com.bolezni.dto.ApiKeyResponse;
+import com.bolezni.dto.ApiResponse;
+import com.bolezni.security.ApiKeyService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/admin/api-keys")
+@PreAuthorize("hasAuthority('ADMIN')")
+public class ApiKeyController {
+
+    private final ApiKeyService apiKeyService;
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<ApiKeyResponse>> createKey(@RequestBody @Valid ApiKeyCreateRequest request) {
+        ApiKeyResponse key = apiKeyService.create(request);
+        ApiResponse<ApiKeyResponse> apiResponse = ApiResponse.<ApiKeyResponse>builder()
+                .status(true)
+                .data(key)
+                .message("API key created, store it now: it cannot be shown again")
+                .build();
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<ApiKeyResponse>>> getUserKeys(@RequestParam(name = "userId") String userId) {
+        List<ApiKeyResponse> keys = apiKeyService.getUserKeys(userId);
+        ApiResponse<List<ApiKeyResponse>> apiResponse = ApiResponse.<List<ApiKeyResponse>>builder()
+                .status(true)
+                .data(keys)
+                .message("Successful get API keys")
+                .build();
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> revokeKey(@PathVariable(name = "id") Long id) {
+        apiKeyService.revoke(id);
+        ApiResponse<Void> apiResponse = ApiResponse.<Void>builder()
+                .status(true)
+                .message("API key revoked")
+                .build();
+        return ResponseEntity.ok(apiResponse);
+    }
+}
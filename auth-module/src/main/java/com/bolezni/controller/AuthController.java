@@ -1,8 +1,10 @@
 package com.bolezni.controller;
 
 import com.bolezni.dto.*;
+import com.bolezni.security.ClientIpResolver;
 import com.bolezni.service.AuthService;
 import com.bolezni.service.VerificationService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -17,11 +19,14 @@ public class AuthController {
 
     private final VerificationService verificationService;
 
+    private final ClientIpResolver clientIpResolver;
+
     private static final String LOGIN = "/login";
 
     @PostMapping(LOGIN)
-    public ResponseEntity<ApiResponse<LoginResponse>> login(@RequestBody @Valid LoginRequest loginRequest) {
-        LoginResponse loginResponse = authService.login(loginRequest);
+    public ResponseEntity<ApiResponse<LoginResponse>> login(@RequestBody @Valid LoginRequest loginRequest,
+                                                            HttpServletRequest request) {
+        LoginResponse loginResponse = authService.login(loginRequest, clientIpResolver.resolve(request));
         ApiResponse<LoginResponse> apiResponse = new ApiResponse<>(true, loginResponse, "Successful login");
         return ResponseEntity.ok(apiResponse);
     }
@@ -33,6 +38,21 @@ public class AuthController {
         return ResponseEntity.ok(apiResponse);
     }
 
+    /**
+     * Подсказка для формы регистрации: username, только что занятый через другой инстанс, может ещё считаться свободным.
+     * Окончательный ответ даёт регистрация.
+     */
+    @GetMapping("/username-available")
+    public ResponseEntity<ApiResponse<Boolean>> isUsernameAvailable(@RequestParam(name = "username") String username) {
+        boolean available = authService.isUsernameAvailable(username);
+        ApiResponse<Boolean> apiResponse = ApiResponse.<Boolean>builder()
+                .status(true)
+                .data(available)
+                .message(available ? "Username is available" : "Username is taken")
+                .build();
+        return ResponseEntity.ok(apiResponse);
+    }
+
     @PostMapping("/verify")
     public ResponseEntity<ApiResponse<Void>> verifyCode(@RequestBody @Valid VerifyEmailRequest request) {
         verificationService.verifyByCode(request);
@@ -59,6 +79,19 @@ public class AuthController {
         return ResponseEntity.ok(apiResponse);
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<Void>> logout(@RequestHeader(name = "Authorization", required = false) String authorization,
+                                                    @RequestBody(required = false) RefreshTokenDto refreshTokenDto) {
+        authService.logout(authorization, refreshTokenDto);
+
+        ApiResponse<Void> apiResponse = ApiResponse.<Void>builder()
+                .status(true)
+                .message("Successful logout")
+                .build();
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
     @PostMapping("/send-token")
     public ResponseEntity<ApiResponse<Void>> sendTokenResetPassword(@RequestParam(name = "email") String email) {
         authService.sendTokenForResetPassword(email);
@@ -0,0 +1,53 @@
+package com.bolezni.controller;
+
+import com.bolezni.service.UserImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Locale;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/v1/admin/users")
+public class UserImportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final UserImportService userImportService;
+
+    /**
+     * Тело запроса - CSV с заголовком или JSONL, ответ - по одной JSON-строке с результатом на каждую входную строку
+     */
+    @PostMapping("/import")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> importUsers(@RequestParam(name = "format", required = false) String format,
+                                                             @RequestParam(name = "verified", defaultValue = "true") boolean verified,
+                                                             HttpServletRequest request) {
+        UserImportService.Format importFormat = resolveFormat(format, request.getContentType());
+
+        StreamingResponseBody body = out ->
+                userImportService.importUsers(request.getInputStream(), importFormat, verified, out);
+
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(body);
+    }
+
+    private static UserImportService.Format resolveFormat(String format, String contentType) {
+        if (format != null) {
+            return UserImportService.Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+        }
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).contains("csv")) {
+            return UserImportService.Format.CSV;
+        }
+        return UserImportService.Format.JSONL;
+    }
+}
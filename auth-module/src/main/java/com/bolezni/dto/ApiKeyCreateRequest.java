@@ -0,0 +1,20 @@
+package com.bolezni.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Positive;
+
+import java.util.Set;
+
+public record ApiKeyCreateRequest(
+        @NotBlank
+        String userId,
+        @NotBlank
+        String name,
+        @NotEmpty
+        Set<String> scopes,
+        // null - бессрочный ключ
+        @Positive
+        Long ttlDays
+) {
+}
@@ -0,0 +1,23 @@
+package com.bolezni.dto;
+
+import com.bolezni.model.Roles;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * key заполняется только в ответе на создание, повторно получить ключ нельзя
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ApiKeyResponse(
+        Long id,
+        String name,
+        String prefix,
+        Set<Roles> scopes,
+        LocalDateTime createdAt,
+        Instant expiresAt,
+        String key
+) {
+}
@@ -0,0 +1,15 @@
+package com.bolezni.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserImportResult(
+        long line,
+        String username,
+        Status status,
+        String message
+) {
+    public enum Status {
+        CREATED, DUPLICATE, INVALID, FAILED
+    }
+}
@@ -0,0 +1,12 @@
+package com.bolezni.events;
+
+/**
+ * Публикуется после изменения данных пользователя, от которых зависит аутентификация.
+ * data - username пользователя.
+ */
+public class UserChangedEvent extends BaseEvent<String> {
+
+    public UserChangedEvent(Object source, String username) {
+        super(source, username);
+    }
+}
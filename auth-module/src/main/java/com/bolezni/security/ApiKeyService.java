@@ -0,0 +1,254 @@
+package com.bolezni.security;
+
+import com.bolezni.dto.ApiKeyCreateRequest;
+import com.bolezni.dto.ApiKeyResponse;
+import com.bolezni.events.UserChangedEvent;
+import com.bolezni.model.ApiKeyEntity;
+import com.bolezni.model.Roles;
+import com.bolezni.model.UserEntity;
+import com.bolezni.repository.ApiKeyRepository;
+import com.bolezni.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * API-ключи для межсервисных вызовов.
+ * Формат ключа: fk_{prefix}_{secret}. По префиксу запись ищется в кэше (в БД - по уникальному индексу),
+ * затем HMAC-SHA256 от ключа сравнивается за постоянное время. Проверка стоит микросекунды вместо хэширования пароля.
+ * Отзыв и блокировка владельца на других инстансах вступают в силу по истечении TTL кэша.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ApiKeyService {
+
+    private static final String KEY_MARKER = "fk_";
+    private static final int PREFIX_BYTES = 6;
+    private static final int SECRET_BYTES = 32;
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private record CachedKey(byte[] digest, UserPrincipal principal, Instant expiresAt) {
+    }
+
+    private final ApiKeyRepository apiKeyRepository;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${application.security.api-keys.hmac-secret:}")
+    private String hmacSecret;
+
+    @Value("${application.security.api-keys.cache-ttl-seconds:60}")
+    private long cacheTtlSeconds;
+
+    @Value("${application.security.api-keys.cache-max-size:10000}")
+    private long cacheMaxSize;
+
+    private SecretKeySpec hmacKey;
+    private ThreadLocal<Mac> macs;
+    // Отсутствующие префиксы тоже кэшируются, чтобы перебор случайных ключей не доходил до БД
+    private Cache<String, Optional<CachedKey>> keysByPrefix;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        // Секрет защищает дайджесты ключей при утечке БД, поэтому без него приложение не стартует
+        if (!StringUtils.hasText(hmacSecret)) {
+            throw new IllegalStateException("application.security.api-keys.hmac-secret is not configured");
+        }
+        hmacKey = new SecretKeySpec(hmacSecret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
+        macs = ThreadLocal.withInitial(this::newMac);
+
+        keysByPrefix = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, keysByPrefix, "api-keys");
+        rejected = meterRegistry.counter("security.api-keys.rejected");
+    }
+
+    public Optional<UserPrincipal> authenticate(String rawKey) {
+        String prefix = parsePrefix(rawKey);
+        if (prefix == null) {
+            rejected.increment();
+            return Optional.empty();
+        }
+
+        Optional<CachedKey> cached = keysByPrefix.get(prefix, this::load);
+        if (cached.isEmpty()) {
+            rejected.increment();
+            return Optional.empty();
+        }
+
+        CachedKey key = cached.get();
+        if (!MessageDigest.isEqual(key.digest(), digest(rawKey))
+                || (key.expiresAt() != null && key.expiresAt().isBefore(Instant.now()))
+                || !key.principal().isAccountNonLocked()) {
+            rejected.increment();
+            return Optional.empty();
+        }
+        return Optional.of(key.principal());
+    }
+
+    @Transactional
+    public ApiKeyResponse create(ApiKeyCreateRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("ApiKeyCreateRequest is null");
+        }
+
+        UserEntity user = userRepository.findByIdWithRoles(request.userId())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        Set<Roles> scopes = EnumSet.noneOf(Roles.class);
+        for (String scope : request.scopes()) {
+            scopes.add(Roles.valueOf(scope.trim().toUpperCase(Locale.ROOT)));
+        }
+        if (!user.getRoles().containsAll(scopes)) {
+            throw new IllegalArgumentException("API key scopes must be a subset of user roles");
+        }
+
+        String prefix = HexFormat.of().formatHex(randomBytes(PREFIX_BYTES));
+        String rawKey = KEY_MARKER + prefix + "_"
+                + Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes(SECRET_BYTES));
+
+        ApiKeyEntity saved = apiKeyRepository.save(ApiKeyEntity.builder()
+                .name(request.name())
+                .prefix(prefix)
+                .secretDigest(HexFormat.of().formatHex(digest(rawKey)))
+                .user(user)
+                .scopes(scopes)
+                .expiresAt(request.ttlDays() != null ? Instant.now().plus(Duration.ofDays(request.ttlDays())) : null)
+                .build());
+        evict(prefix);
+
+        log.info("API key {} ({}) created for user {} with scopes {}", saved.getId(), prefix, user.getId(), scopes);
+        return toResponse(saved, rawKey);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ApiKeyResponse> getUserKeys(String userId) {
+        return apiKeyRepository.findAllByUserIdWithScopes(userId).stream()
+                .map(key -> toResponse(key, null))
+                .toList();
+    }
+
+    @Transactional
+    public void revoke(Long id) {
+        ApiKeyEntity key = apiKeyRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("API key not found"));
+        apiKeyRepository.delete(key);
+        evict(key.getPrefix());
+        log.info("API key {} ({}) revoked", id, key.getPrefix());
+    }
+
+    /**
+     * Блокировка или смена ролей владельца сразу снимает его ключи из кэша этого инстанса
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        // По id - если сменился username, по username - если пользователь уже удалён
+        String username = event.getData();
+        String userId = userRepository.findByUsername(username).map(UserEntity::getId).orElse(null);
+        keysByPrefix.asMap().values().removeIf(cached -> cached
+                .map(key -> key.principal().id().equals(userId) || key.principal().getUsername().equals(username))
+                .orElse(false));
+    }
+
+    private void evict(String prefix) {
+        keysByPrefix.invalidate(prefix);
+
+        // Повторная инвалидация после коммита: до коммита параллельная проверка могла загрузить старое состояние
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    keysByPrefix.invalidate(prefix);
+                }
+            });
+        }
+    }
+
+    private Optional<CachedKey> load(String prefix) {
+        return apiKeyRepository.findByPrefixWithUser(prefix)
+                .map(key -> new CachedKey(
+                        HexFormat.of().parseHex(key.getSecretDigest()),
+                        // Роли владельца могли сократиться после выдачи ключа
+                        UserPrincipal.from(key.getUser()).withoutPassword()
+                                .withRoleBits(RoleBits.toBits(key.getScopes()) & RoleBits.toBits(key.getUser().getRoles())),
+                        key.getExpiresAt()));
+    }
+
+    private static String parsePrefix(String rawKey) {
+        if (rawKey == null || !rawKey.startsWith(KEY_MARKER)) {
+            return null;
+        }
+        int separator = rawKey.indexOf('_', KEY_MARKER.length());
+        if (separator != KEY_MARKER.length() + PREFIX_BYTES * 2) {
+            return null;
+        }
+        return rawKey.substring(KEY_MARKER.length(), separator);
+    }
+
+    private byte[] digest(String rawKey) {
+        return macs.get().doFinal(rawKey.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(hmacKey);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        secureRandom.nextBytes(bytes);
+        return bytes;
+    }
+
+    private static ApiKeyResponse toResponse(ApiKeyEntity key, String rawKey) {
+        return new ApiKeyResponse(
+                key.getId(),
+                key.getName(),
+                key.getPrefix(),
+                Set.copyOf(key.getScopes()),
+                key.getCreatedAt(),
+                key.getExpiresAt(),
+                rawKey
+        );
+    }
+}
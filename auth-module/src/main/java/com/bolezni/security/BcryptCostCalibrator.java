@@ -0,0 +1,49 @@
+package com.bolezni.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Подбирает cost BCrypt под текущее железо: максимальный cost, при котором одно хэширование укладывается в целевое время.
+ * Каждый шаг cost удваивает работу, поэтому достаточно замерить минимальный cost и посчитать остальное.
+ */
+@Slf4j
+public final class BcryptCostCalibrator {
+
+    private static final int SAMPLES = 3;
+
+    private BcryptCostCalibrator() {
+    }
+
+    public static int calibrate(Duration target, int minCost, int maxCost) {
+        if (minCost < 4 || maxCost > 31 || minCost > maxCost) {
+            throw new IllegalArgumentException("BCrypt cost range must be within 4..31");
+        }
+
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minCost);
+        String password = UUID.randomUUID().toString();
+
+        // Первый прогон прогревает JIT и в замер не идёт
+        encoder.encode(password);
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(password);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        int cost = minCost;
+        long estimatedNanos = bestNanos;
+        while (cost < maxCost && estimatedNanos * 2 <= target.toNanos()) {
+            cost++;
+            estimatedNanos *= 2;
+        }
+
+        log.info("BCrypt cost calibrated to {} (~{} ms per hash, target {} ms)",
+                cost, Duration.ofNanos(estimatedNanos).toMillis(), target.toMillis());
+        return cost;
+    }
+}
@@ -0,0 +1,57 @@
+package com.bolezni.security;
+
+import com.bolezni.events.UserChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Кэш компактных principal поверх {@link CustomUserDetailsService} для аутентификации по JWT.
+ * Пароль в кэш не попадает, поэтому для логина используется исходный сервис.
+ */
+@Slf4j
+public class CachingUserDetailsService implements UserDetailsService {
+
+    private final UserDetailsService delegate;
+    private final Cache<String, UserPrincipal> principals;
+
+    public CachingUserDetailsService(UserDetailsService delegate,
+                                     long maxSize,
+                                     Duration ttl,
+                                     MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.principals = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "security.user-details");
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return principals.get(username, this::loadPrincipal);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        principals.invalidate(event.getData());
+        log.debug("Evicted cached user details for: {}", event.getData());
+    }
+
+    private UserPrincipal loadPrincipal(String username) {
+        UserDetails userDetails = delegate.loadUserByUsername(username);
+        if (userDetails instanceof UserPrincipal principal) {
+            return principal.withoutPassword();
+        }
+        throw new IllegalStateException("Unexpected user details type: " + userDetails.getClass());
+    }
+}
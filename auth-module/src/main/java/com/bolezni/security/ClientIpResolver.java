@@ -0,0 +1,77 @@
+package com.bolezni.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Адрес клиента за обратным прокси. X-Forwarded-For учитывается только от доверенных прокси
+ * и читается справа налево до первого недоверенного адреса: левые значения клиент может подставить сам.
+ * Без настроенных прокси используется адрес соединения.
+ */
+@Component
+public class ClientIpResolver {
+
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    // Адреса или CIDR через запятую, например 10.0.0.0/8,127.0.0.1
+    @Value("${application.security.trusted-proxies:}")
+    private String trustedProxies;
+
+    private List<IpAddressMatcher> proxyMatchers;
+
+    @PostConstruct
+    void init() {
+        proxyMatchers = Arrays.stream(trustedProxies.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .map(IpAddressMatcher::new)
+                .toList();
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (proxyMatchers.isEmpty() || !isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+
+        String forwardedFor = request.getHeader(FORWARDED_FOR);
+        if (!StringUtils.hasText(forwardedFor)) {
+            return remoteAddr;
+        }
+
+        String[] hops = forwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!StringUtils.hasText(hop)) {
+                continue;
+            }
+            if (!isTrusted(hop)) {
+                return hop;
+            }
+        }
+        // Вся цепочка из доверенных прокси: ближайший к клиенту адрес
+        String first = hops[0].trim();
+        return StringUtils.hasText(first) ? first : remoteAddr;
+    }
+
+    private boolean isTrusted(String address) {
+        for (IpAddressMatcher matcher : proxyMatchers) {
+            try {
+                if (matcher.matches(address)) {
+                    return true;
+                }
+            } catch (IllegalArgumentException e) {
+                // Имя хоста или мусор в заголовке - не доверяем
+                return false;
+            }
+        }
+        return false;
+    }
+}
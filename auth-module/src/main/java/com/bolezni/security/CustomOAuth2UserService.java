@@ -1,7 +1,9 @@
 package com.bolezni.security;
 
 import com.bolezni.model.UserEntity;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.security.oauth2.client.http.OAuth2ErrorResponseErrorHandler;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
 import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
@@ -9,21 +11,41 @@ import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
 @Service
-@RequiredArgsConstructor
 public class CustomOAuth2UserService implements OAuth2UserService<OAuth2UserRequest, OAuth2User> {
 
     private final OAuth2ProviderFactory providerFactory;
+    private final OAuth2UserProvisioner userProvisioner;
+    // Один клиент на всё приложение: соединения к user-info endpoint переиспользуются между входами
+    private final DefaultOAuth2UserService delegate;
+
+    public CustomOAuth2UserService(OAuth2ProviderFactory providerFactory,
+                                   OAuth2UserProvisioner userProvisioner,
+                                   RestTemplateBuilder restTemplateBuilder,
+                                   @Value("${app.oauth2.user-info.connect-timeout-ms:2000}") long connectTimeoutMs,
+                                   @Value("${app.oauth2.user-info.read-timeout-ms:5000}") long readTimeoutMs) {
+        this.providerFactory = providerFactory;
+        this.userProvisioner = userProvisioner;
+
+        this.delegate = new DefaultOAuth2UserService();
+        this.delegate.setRestOperations(restTemplateBuilder
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .readTimeout(Duration.ofMillis(readTimeoutMs))
+                .errorHandler(new OAuth2ErrorResponseErrorHandler())
+                .build());
+    }
 
     @Override
     public OAuth2User loadUser(OAuth2UserRequest userRequest) throws OAuth2AuthenticationException {
-        OAuth2User oAuth2User = new DefaultOAuth2UserService().loadUser(userRequest);
+        OAuth2User oAuth2User = delegate.loadUser(userRequest);
 
         String providerId = userRequest.getClientRegistration().getRegistrationId();
 
         OAuth2Provider provider = providerFactory.getAuthProvider(providerId);
 
-        UserEntity user = provider.extractUser(oAuth2User);
-        return new CustomOAuth2User(oAuth2User,user);
+        UserEntity user = userProvisioner.provision(provider.extractUser(oAuth2User));
+        return new CustomOAuth2User(oAuth2User, user);
     }
 }
@@ -3,22 +3,37 @@ package com.bolezni.security;
 import com.bolezni.model.UserEntity;
 import com.bolezni.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.transaction.annotation.Transactional;
 
 
+@Slf4j
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        UserEntity user = userRepository.findByUsername(username)
+        UserEntity user = userRepository.findByUsernameWithRoles(username)
                 .orElseThrow(() -> new UsernameNotFoundException(username));
-        return new CustomUserDetails(user);
+        return UserPrincipal.from(user);
+    }
+
+    /**
+     * Сохраняет пересчитанный хэш после входа со старым cost или алгоритмом.
+     * Пароль не меняется, поэтому версия безопасности не увеличивается и токены остаются действительными.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePasswordByUsername(user.getUsername(), newPassword);
+        log.info("Password hash upgraded for user {}", user.getUsername());
+        return user instanceof UserPrincipal principal ? principal.withPassword(newPassword) : user;
     }
 }
@@ -0,0 +1,102 @@
+package com.bolezni.security;
+
+import com.bolezni.repository.ApiKeyRepository;
+import com.bolezni.repository.EmailVerificationTokenRepository;
+import com.bolezni.repository.PasswordResetTokenRepository;
+import com.bolezni.repository.RefreshTokenRepository;
+import com.bolezni.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Фоновое удаление истёкших токенов порциями.
+ * Каждая порция - отдельная короткая транзакция с DELETE по индексу на дате истечения,
+ * между порциями пауза, чтобы не держать блокировки и не нагружать БД разом.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ExpiredTokenPurger {
+
+    private final EmailVerificationTokenRepository emailTokenRepository;
+    private final PasswordResetTokenRepository resetTokenRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final ApiKeyRepository apiKeyRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.token-purge.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.token-purge.pause-ms:100}")
+    private long pauseMs;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.token-purge.interval-ms:3600000}",
+            initialDelayString = "${app.token-purge.initial-delay-ms:60000}")
+    public void purgeExpiredTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        Instant nowInstant = Instant.now();
+
+        purge("email_verification_tokens", () -> emailTokenRepository.deleteExpiredBatch(now, batchSize));
+        purge("password_reset_token", () -> resetTokenRepository.deleteExpiredBatch(now, batchSize));
+        purge("refresh_token", () -> refreshTokenRepository.deleteExpiredBatch(nowInstant, batchSize));
+        purge("revoked_token", () -> revokedTokenRepository.deleteExpiredBatch(nowInstant, batchSize));
+        purge("api_key", () -> apiKeyRepository.deleteExpiredBatch(nowInstant, batchSize));
+    }
+
+    private void purge(String table, IntSupplier deleteChunk) {
+        Timer chunkTimer = meterRegistry.timer("tokens.purge.chunk", "table", table);
+        Counter purgedCounter = meterRegistry.counter("tokens.purged", "table", table);
+
+        long total = 0;
+        try {
+            while (true) {
+                long start = System.nanoTime();
+                Integer deleted = transactionTemplate.execute(status -> deleteChunk.getAsInt());
+                long elapsed = System.nanoTime() - start;
+
+                int rows = deleted != null ? deleted : 0;
+                chunkTimer.record(elapsed, TimeUnit.NANOSECONDS);
+                purgedCounter.increment(rows);
+                total += rows;
+                log.debug("Purged {} rows from {} in {} ms", rows, table, TimeUnit.NANOSECONDS.toMillis(elapsed));
+
+                if (rows < batchSize) {
+                    break;
+                }
+                Thread.sleep(pauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Purge of {} interrupted", table);
+        } catch (RuntimeException e) {
+            log.error("Purge of {} failed: {}", table, e.getMessage());
+        }
+
+        if (total > 0) {
+            log.info("Purged {} expired rows from {}", total, table);
+        }
+    }
+}
@@ -31,6 +31,6 @@ public class GitHubOAuth2Provider implements OAuth2Provider {
 
     @Override
     public boolean supports(String providerId) {
-        return false;
+        return getProviderName().equals(providerId);
     }
 }
@@ -0,0 +1,165 @@
+package com.bolezni.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ограничение неудачных попыток входа по username и по IP в скользящем окне.
+ * Лишние попытки отклоняются до запуска BCrypt. Для username после нескольких бесплатных ошибок
+ * каждая следующая попытка ждёт вдвое дольше предыдущей. Для IP только жёсткий лимит окна:
+ * за одним адресом (NAT, офис) много пользователей, и экспоненциальная задержка блокировала бы их всех.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoginAttemptLimiter {
+
+    private static final int SLOTS = 16;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.login-limit.window-seconds:900}")
+    private long windowSeconds;
+
+    @Value("${application.security.login-limit.max-per-username:20}")
+    private int maxPerUsername;
+
+    @Value("${application.security.login-limit.max-per-ip:100}")
+    private int maxPerIp;
+
+    @Value("${application.security.login-limit.free-attempts:5}")
+    private int freeAttempts;
+
+    @Value("${application.security.login-limit.base-delay-ms:1000}")
+    private long baseDelayMs;
+
+    @Value("${application.security.login-limit.max-delay-ms:300000}")
+    private long maxDelayMs;
+
+    @Value("${application.security.login-limit.max-keys:100000}")
+    private long maxKeys;
+
+    private Cache<String, AttemptWindow> windows;
+    private long slotMillis;
+    private Counter blockedByUsername;
+    private Counter blockedByIp;
+
+    @PostConstruct
+    void init() {
+        slotMillis = Math.max(1, Duration.ofSeconds(windowSeconds).toMillis() / SLOTS);
+        windows = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofSeconds(windowSeconds))
+                .build();
+        blockedByUsername = meterRegistry.counter("security.login.blocked", "key", "username");
+        blockedByIp = meterRegistry.counter("security.login.blocked", "key", "ip");
+    }
+
+    /**
+     * @throws ResponseStatusException 429, если попытку нужно отклонить без проверки пароля
+     */
+    public void checkAllowed(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+
+        if (isBlocked(usernameKey(username), maxPerUsername, now, true)) {
+            blockedByUsername.increment();
+            log.warn("Login attempt for {} blocked", username);
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts, try again later");
+        }
+        if (clientIp != null && isBlocked(ipKey(clientIp), maxPerIp, now, false)) {
+            blockedByIp.increment();
+            log.warn("Login attempt from {} blocked", clientIp);
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many login attempts, try again later");
+        }
+    }
+
+    public void recordFailure(String username, String clientIp) {
+        long now = System.currentTimeMillis();
+        windows.get(usernameKey(username), k -> new AttemptWindow()).record(now, slotMillis);
+        if (clientIp != null) {
+            windows.get(ipKey(clientIp), k -> new AttemptWindow()).record(now, slotMillis);
+        }
+    }
+
+    public void recordSuccess(String username) {
+        windows.invalidate(usernameKey(username));
+    }
+
+    private boolean isBlocked(String key, int limit, long now, boolean backoff) {
+        AttemptWindow window = windows.getIfPresent(key);
+        if (window == null) {
+            return false;
+        }
+
+        int failures = window.count(now, slotMillis);
+        if (failures >= limit) {
+            return true;
+        }
+        if (!backoff || failures < freeAttempts) {
+            return false;
+        }
+
+        int exponent = Math.min(failures - freeAttempts, 30);
+        long delay = Math.min(baseDelayMs << exponent, maxDelayMs);
+        return now - window.lastFailureAt() < delay;
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + username.toLowerCase(Locale.ROOT);
+    }
+
+    private static String ipKey(String clientIp) {
+        return "ip:" + clientIp;
+    }
+
+    /**
+     * Кольцо из SLOTS интервалов: счётчик слота обнуляется, когда слот переходит к новому интервалу.
+     * Гонка при сбросе может потерять единичную попытку, что для ограничителя допустимо.
+     */
+    private static final class AttemptWindow {
+        private final AtomicLongArray slotIds = new AtomicLongArray(SLOTS);
+        private final AtomicIntegerArray counts = new AtomicIntegerArray(SLOTS);
+        private final AtomicLong lastFailureAt = new AtomicLong();
+
+        void record(long now, long slotMillis) {
+            long slotId = now / slotMillis;
+            int index = (int) (slotId % SLOTS);
+            long current = slotIds.get(index);
+            if (current != slotId && slotIds.compareAndSet(index, current, slotId)) {
+                counts.set(index, 0);
+            }
+            counts.incrementAndGet(index);
+            lastFailureAt.accumulateAndGet(now, Math::max);
+        }
+
+        int count(long now, long slotMillis) {
+            long oldestSlotId = now / slotMillis - SLOTS + 1;
+            int total = 0;
+            for (int i = 0; i < SLOTS; i++) {
+                if (slotIds.get(i) >= oldestSlotId) {
+                    total += counts.get(i);
+                }
+            }
+            return total;
+        }
+
+        long lastFailureAt() {
+            return lastFailureAt.get();
+        }
+    }
+}
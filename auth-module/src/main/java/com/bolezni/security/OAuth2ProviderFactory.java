@@ -1,20 +1,27 @@
 package com.bolezni.security;
 
-import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Component
-@RequiredArgsConstructor
 public class OAuth2ProviderFactory {
 
-    private final List<OAuth2Provider> OAuth2Providers;
+    private final Map<String, OAuth2Provider> providers;
+
+    public OAuth2ProviderFactory(List<OAuth2Provider> oAuth2Providers) {
+        this.providers = oAuth2Providers.stream()
+                .collect(Collectors.toUnmodifiableMap(OAuth2Provider::getProviderName, Function.identity()));
+    }
 
     public OAuth2Provider getAuthProvider(String providerId) {
-        return OAuth2Providers.stream()
-                .filter(provider -> provider.supports(providerId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Unsupported provider: " + providerId));
+        OAuth2Provider provider = providers.get(providerId);
+        if (provider == null) {
+            throw new IllegalArgumentException("Unsupported provider: " + providerId);
+        }
+        return provider;
     }
 }
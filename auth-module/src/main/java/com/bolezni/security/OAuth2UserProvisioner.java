@@ -0,0 +1,178 @@
+package com.bolezni.security;
+
+import com.bolezni.model.Roles;
+import com.bolezni.model.UserEntity;
+import com.bolezni.repository.UserRepository;
+import com.bolezni.service.UserAvailabilityService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Находит или создаёт локального пользователя для входа через OAuth2.
+ * Пользователь однозначно определяется парой (provider, provider_id) с уникальным индексом,
+ * создание идёт через INSERT ... ON CONFLICT, поэтому одновременные первые входы не создают дублей.
+ * Соответствие provider_id -> id кэшируется, повторный вход - один запрос по первичному ключу.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OAuth2UserProvisioner {
+
+    private static final String UPSERT_USER = "INSERT INTO _user (id, first_name, last_name, username, email, password, " +
+            "provider, provider_id, is_verified, is_locked, security_version, email_notifications_enabled, " +
+            "push_notifications_enabled, marketing_notifications_enabled, created_at, update_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, true, false, 0, true, true, false, ?, ?) " +
+            "ON CONFLICT (provider, provider_id) DO UPDATE SET update_at = EXCLUDED.update_at " +
+            "RETURNING id, (xmax = 0) AS inserted";
+
+    private static final String UNIQUE_VIOLATION = "23505";
+    private static final String EMAIL_COLUMN = "email";
+
+    private static final String INSERT_ROLE = "INSERT INTO user_roles (user_id, roles) VALUES (?, ?)";
+
+    private record UpsertResult(String id, boolean inserted) {
+    }
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final PlatformTransactionManager transactionManager;
+    private final UserAvailabilityService userAvailabilityService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.oauth2.user-cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    @Value("${app.oauth2.user-cache.ttl-minutes:60}")
+    private long cacheTtlMinutes;
+
+    private Cache<String, String> userIdByProviderKey;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        userIdByProviderKey = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(Duration.ofMinutes(cacheTtlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, userIdByProviderKey, "oauth2.user-ids");
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @param extracted данные пользователя от провайдера, сущность не сохранена
+     * @return сохранённый пользователь с загруженными ролями
+     */
+    public UserEntity provision(UserEntity extracted) {
+        String provider = extracted.getProvider();
+        String providerId = extracted.getProviderId();
+        if (!StringUtils.hasText(provider) || !StringUtils.hasText(providerId)) {
+            throw new OAuth2AuthenticationException(new OAuth2Error("invalid_user_info", "Provider user id is missing", null));
+        }
+        String providerKey = provider + ":" + providerId;
+
+        String cachedId = userIdByProviderKey.getIfPresent(providerKey);
+        if (cachedId != null) {
+            Optional<UserEntity> cached = userRepository.findByIdWithRoles(cachedId);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+            // Пользователь удалён после попадания в кэш
+            userIdByProviderKey.invalidate(providerKey);
+        }
+
+        String userId = userRepository.findIdByProviderAndProviderId(provider, providerId)
+                .orElseGet(() -> create(extracted));
+        userIdByProviderKey.put(providerKey, userId);
+
+        return userRepository.findByIdWithRoles(userId)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    private String create(UserEntity extracted) {
+        if (!StringUtils.hasText(extracted.getEmail())) {
+            throw new OAuth2AuthenticationException(new OAuth2Error("email_missing", "Provider did not return an email", null));
+        }
+
+        String username = extracted.getProvider() + "_" + extracted.getProviderId();
+        // Пароль для входа по логину не используется, но колонка обязательная
+        String password = passwordEncoder.encode(UUID.randomUUID().toString());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        UpsertResult result;
+        try {
+            result = transactionTemplate.execute(status -> {
+                UpsertResult upsert = jdbcTemplate.queryForObject(UPSERT_USER,
+                        (rs, rowNum) -> new UpsertResult(rs.getString("id"), rs.getBoolean("inserted")),
+                        UUID.randomUUID().toString(),
+                        Objects.requireNonNullElse(extracted.getFirstName(), ""),
+                        Objects.requireNonNullElse(extracted.getLastName(), ""),
+                        username,
+                        extracted.getEmail(),
+                        password,
+                        extracted.getProvider(),
+                        extracted.getProviderId(),
+                        now,
+                        now);
+                if (upsert != null && upsert.inserted()) {
+                    jdbcTemplate.update(INSERT_ROLE, upsert.id(), Roles.CLIENT.name());
+                }
+                return upsert;
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (!isEmailTaken(e)) {
+                throw e;
+            }
+            // Email уже занят локальной учётной записью: автоматически не связываем, email провайдера может быть не подтверждён
+            log.warn("OAuth2 login via {} rejected, email {} is already registered", extracted.getProvider(), extracted.getEmail());
+            throw new OAuth2AuthenticationException(new OAuth2Error("account_exists", "Email is already registered", null));
+        }
+
+        if (result == null) {
+            throw new RuntimeException("OAuth2 user upsert returned no rows");
+        }
+        if (result.inserted()) {
+            userAvailabilityService.register(username, extracted.getEmail());
+            log.info("Created user {} for {} login", result.id(), extracted.getProvider());
+        }
+        return result.id();
+    }
+
+    /**
+     * Нарушение уникальности именно по email. PostgreSQL описывает ключ в сообщении: "Key (email)=(...) already exists";
+     * остальные нарушения (username, роли) - ошибки, а не занятый адрес
+     */
+    private static boolean isEmailTaken(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+                String message = sqlException.getMessage();
+                return message != null && message.contains("(" + EMAIL_COLUMN + ")");
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,232 @@
+package com.bolezni.security;
+
+import com.bolezni.model.RefreshTokenEntity;
+import com.bolezni.model.UserEntity;
+import com.bolezni.repository.RefreshTokenRepository;
+import com.bolezni.repository.UserRepository;
+import com.bolezni.security.jwt.JwtService;
+import com.bolezni.security.jwt.TokenRevocationService;
+import com.bolezni.security.jwt.VerifiedToken;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Непрозрачные refresh токены с ротацией.
+ * Каждое обновление гасит предъявленный токен и выдаёт новый из того же семейства.
+ * Повторное предъявление погашенного токена вне grace-окна считается кражей, и отзывается всё семейство.
+ * Refresh JWT, выданные до появления семейств, один раз меняются на первый токен нового семейства.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final String LEGACY_KEY_PREFIX = "legacy-rt:";
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    @Value("${application.security.jwt.refresh-token.expiration}")
+    private long refreshExpiration;
+
+    @Value("${application.security.refresh-token.reuse-grace-seconds:10}")
+    private long reuseGraceSeconds;
+
+    @Value("${application.security.refresh-token.accept-legacy-jwt:true}")
+    private boolean acceptLegacyJwt;
+
+    private TransactionTemplate transactionTemplate;
+    // Результаты недавних ротаций: параллельные запросы из нескольких вкладок получают одну и ту же новую пару
+    private Cache<String, Rotation> recentRotations;
+    private Counter reuseDetected;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        recentRotations = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofSeconds(reuseGraceSeconds))
+                .build();
+        reuseDetected = meterRegistry.counter("security.refresh-token.reuse");
+    }
+
+    public record Rotation(UserPrincipal principal, String refreshToken) {
+    }
+
+    /**
+     * Выдаёт первый токен нового семейства
+     */
+    @Transactional
+    public String issue(String userId) {
+        return createToken(userRepository.getReferenceById(userId), UUID.randomUUID().toString());
+    }
+
+    /**
+     * Гасит предъявленный токен и выдаёт следующий.
+     * Одновременные запросы с одним токеном внутри инстанса ждут первую ротацию и получают её результат.
+     */
+    public Rotation rotate(String rawToken) {
+        if (isJwt(rawToken)) {
+            return recentRotations.get(hash(rawToken), tokenHash -> exchangeLegacy(rawToken, tokenHash));
+        }
+        return recentRotations.get(hash(rawToken), this::rotateByHash);
+    }
+
+    /**
+     * Отзывает семейство токена, если он принадлежит пользователю
+     */
+    @Transactional
+    public void revokeFamily(String rawToken, String userId) {
+        String tokenHash = hash(rawToken);
+        refreshTokenRepository.findFamilyIdByTokenHashAndUserId(tokenHash, userId)
+                .ifPresent(refreshTokenRepository::revokeFamily);
+        recentRotations.invalidate(tokenHash);
+    }
+
+    @Transactional
+    public void revokeAllForUser(String userId) {
+        int revoked = refreshTokenRepository.revokeAllByUserId(userId);
+        log.info("Revoked {} refresh tokens of user {}", revoked, userId);
+    }
+
+    private Rotation rotateByHash(String tokenHash) {
+        Rotation rotation = transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+
+            RefreshTokenEntity token = refreshTokenRepository.findByTokenHashWithUser(tokenHash)
+                    .orElseThrow(() -> new IllegalArgumentException("Refresh token is invalid"));
+
+            if (token.isRevoked() || token.getExpiresAt().isBefore(now)) {
+                log.warn("Revoked or expired refresh token used for user {}", token.getUser().getId());
+                throw new IllegalArgumentException("Refresh token is invalid or expired");
+            }
+
+            if (token.getUsedAt() != null || refreshTokenRepository.markUsed(token.getId(), now) == 0) {
+                // Исключение здесь откатило бы отзыв семейства, поэтому отказ выбрасывается после коммита
+                handleReuse(token, now);
+                return null;
+            }
+
+            UserEntity user = token.getUser();
+            if (user.isLocked()) {
+                log.warn("Refresh token used by locked user {}", user.getId());
+                throw new IllegalArgumentException("User is locked");
+            }
+
+            return new Rotation(UserPrincipal.from(user).withoutPassword(), createToken(user, token.getFamilyId()));
+        });
+
+        if (rotation == null) {
+            throw new IllegalArgumentException("Refresh token has already been used");
+        }
+        return rotation;
+    }
+
+    private Rotation exchangeLegacy(String rawToken, String tokenHash) {
+        if (!acceptLegacyJwt) {
+            throw new IllegalArgumentException("Refresh token is invalid");
+        }
+
+        VerifiedToken token;
+        try {
+            token = jwtService.verify(rawToken);
+        } catch (JwtException e) {
+            log.warn("Invalid legacy refresh token: {}", e.getMessage());
+            throw new IllegalArgumentException("Refresh token is invalid or expired");
+        }
+        // Access-токен того же формата обменять на refresh нельзя
+        if (!jwtService.isLegacyRefreshToken(token) || tokenRevocationService.isRevoked(token)) {
+            throw new IllegalArgumentException("Refresh token is invalid or expired");
+        }
+
+        return transactionTemplate.execute(status -> {
+            UserEntity user = userRepository.findByUsernameWithRoles(token.subject())
+                    .orElseThrow(() -> new IllegalArgumentException("Refresh token is invalid"));
+
+            if (user.isLocked()) {
+                log.warn("Legacy refresh token used by locked user {}", user.getId());
+                throw new IllegalArgumentException("User is locked");
+            }
+            if (token.securityVersion() != null && token.securityVersion() != user.getSecurityVersion()) {
+                throw new IllegalArgumentException("Refresh token is invalid or expired");
+            }
+            // Одноразовость между инстансами: ключ в revoked_token вставляет только первый обмен
+            if (!tokenRevocationService.revokeOnce(LEGACY_KEY_PREFIX + tokenHash, token.expiresAt())) {
+                log.warn("Legacy refresh token of user {} has already been exchanged", user.getId());
+                throw new IllegalArgumentException("Refresh token has already been used");
+            }
+
+            log.info("Legacy refresh token of user {} exchanged for a new token family", user.getId());
+            return new Rotation(UserPrincipal.from(user).withoutPassword(), createToken(user, UUID.randomUUID().toString()));
+        });
+    }
+
+    private static boolean isJwt(String rawToken) {
+        // Непрозрачные токены - base64url без точек, JWT - три сегмента через точку
+        return rawToken.indexOf('.') >= 0;
+    }
+
+    private void handleReuse(RefreshTokenEntity token, Instant now) {
+        // Ротацию мог выполнить другой инстанс мгновением раньше: такой повтор не считаем кражей
+        Instant usedAt = token.getUsedAt();
+        if (usedAt == null || usedAt.plusSeconds(reuseGraceSeconds).isAfter(now)) {
+            log.info("Concurrent refresh for token family {}", token.getFamilyId());
+            return;
+        }
+
+        reuseDetected.increment();
+        refreshTokenRepository.revokeFamily(token.getFamilyId());
+        log.warn("Refresh token reuse detected, family {} of user {} revoked",
+                token.getFamilyId(), token.getUser().getId());
+    }
+
+    private String createToken(UserEntity user, String familyId) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String rawToken = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        refreshTokenRepository.save(RefreshTokenEntity.builder()
+                .tokenHash(hash(rawToken))
+                .familyId(familyId)
+                .user(user)
+                .expiresAt(Instant.now().plusMillis(refreshExpiration))
+                .build());
+        return rawToken;
+    }
+
+    private static String hash(String rawToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(rawToken.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
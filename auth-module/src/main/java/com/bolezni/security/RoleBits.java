@@ -0,0 +1,62 @@
+package com.bolezni.security;
+
+import com.bolezni.model.Roles;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Компактное представление набора ролей в виде битовой маски (бит = ordinal роли).
+ * Списки authorities для всех комбинаций строятся один раз при загрузке класса.
+ */
+public final class RoleBits {
+
+    private static final Roles[] ROLES = Roles.values();
+
+    private static final List<List<GrantedAuthority>> AUTHORITIES = buildAuthorities();
+
+    private RoleBits() {
+    }
+
+    public static int toBits(Collection<Roles> roles) {
+        int bits = 0;
+        for (Roles role : roles) {
+            bits |= 1 << role.ordinal();
+        }
+        return bits;
+    }
+
+    public static Set<Roles> toRoles(int bits) {
+        Set<Roles> roles = EnumSet.noneOf(Roles.class);
+        for (Roles role : ROLES) {
+            if ((bits & (1 << role.ordinal())) != 0) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+
+    public static List<GrantedAuthority> authorities(int bits) {
+        return AUTHORITIES.get(bits & ((1 << ROLES.length) - 1));
+    }
+
+    private static List<List<GrantedAuthority>> buildAuthorities() {
+        int combinations = 1 << ROLES.length;
+        List<List<GrantedAuthority>> result = new ArrayList<>(combinations);
+        for (int bits = 0; bits < combinations; bits++) {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            for (Roles role : ROLES) {
+                if ((bits & (1 << role.ordinal())) != 0) {
+                    authorities.add(new SimpleGrantedAuthority(role.name()));
+                }
+            }
+            result.add(List.copyOf(authorities));
+        }
+        return List.copyOf(result);
+    }
+}
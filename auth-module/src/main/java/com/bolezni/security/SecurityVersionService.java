@@ -0,0 +1,81 @@
+package com.bolezni.security;
+
+import com.bolezni.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Версия безопасности пользователя. Токен, выпущенный с устаревшей версией, больше не принимается.
+ * Версии кэшируются на короткое время, чтобы проверка не ходила в БД на каждый запрос.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SecurityVersionService {
+
+    private static final long MISSING_USER = -1L;
+
+    private final UserRepository userRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.jwt.security-version.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${application.security.jwt.security-version.max-size:100000}")
+    private long maxSize;
+
+    private Cache<String, Long> versions;
+
+    @PostConstruct
+    void init() {
+        versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "security.versions");
+    }
+
+    public boolean isCurrent(String userId, long version) {
+        Long current = versions.get(userId, id -> userRepository.findSecurityVersionById(id).orElse(MISSING_USER));
+        return current != MISSING_USER && current == version;
+    }
+
+    /**
+     * Делает недействительными все выданные пользователю access и refresh токены
+     *
+     * @return новая версия безопасности
+     */
+    @Transactional
+    public long bump(String userId) {
+        userRepository.incrementSecurityVersion(userId);
+        long version = userRepository.findSecurityVersionById(userId).orElse(MISSING_USER);
+        refreshTokenService.revokeAllForUser(userId);
+        versions.invalidate(userId);
+
+        // Повторная инвалидация после коммита: между UPDATE и коммитом кэш мог загрузить старую версию
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.invalidate(userId);
+                }
+            });
+        }
+        log.info("Security version bumped for user {}", userId);
+        return version;
+    }
+}
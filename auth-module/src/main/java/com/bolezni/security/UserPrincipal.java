@@ -0,0 +1,121 @@
+package com.bolezni.security;
+
+import com.bolezni.model.UserEntity;
+import com.bolezni.security.jwt.VerifiedToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+
+/**
+ * Компактный неизменяемый principal, который живёт в SecurityContext вместо графа UserEntity.
+ * email и password заполняются только при загрузке из БД, password нужен лишь на время логина.
+ */
+public record UserPrincipal(
+        String id,
+        String username,
+        String email,
+        String password,
+        int roleBits,
+        boolean verified,
+        boolean locked,
+        int notificationBits,
+        long securityVersion
+) implements UserDetails {
+
+    public static final int EMAIL_NOTIFICATIONS = 1;
+    public static final int PUSH_NOTIFICATIONS = 1 << 1;
+    public static final int MARKETING_NOTIFICATIONS = 1 << 2;
+
+    public static UserPrincipal from(UserEntity user) {
+        return new UserPrincipal(
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                user.getPassword(),
+                RoleBits.toBits(user.getRoles()),
+                user.isVerified(),
+                user.isLocked(),
+                notificationBits(user),
+                user.getSecurityVersion()
+        );
+    }
+
+    public static UserPrincipal from(VerifiedToken token) {
+        return new UserPrincipal(
+                token.userId(),
+                token.subject(),
+                null,
+                null,
+                token.roleBits(),
+                token.verified(),
+                // Токены заблокированного пользователя отзываются, поэтому из claims он всегда не заблокирован
+                false,
+                token.notificationBits(),
+                token.securityVersion()
+        );
+    }
+
+    public UserPrincipal withoutPassword() {
+        return withPassword(null);
+    }
+
+    public UserPrincipal withPassword(String password) {
+        return new UserPrincipal(id, username, email, password, roleBits, verified, locked, notificationBits, securityVersion);
+    }
+
+    public UserPrincipal withRoleBits(int roleBits) {
+        return new UserPrincipal(id, username, email, password, roleBits, verified, locked, notificationBits, securityVersion);
+    }
+
+    public boolean emailNotificationsEnabled() {
+        return (notificationBits & EMAIL_NOTIFICATIONS) != 0;
+    }
+
+    public boolean pushNotificationsEnabled() {
+        return (notificationBits & PUSH_NOTIFICATIONS) != 0;
+    }
+
+    public boolean marketingNotificationsEnabled() {
+        return (notificationBits & MARKETING_NOTIFICATIONS) != 0;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return RoleBits.authorities(roleBits);
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return !locked;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String toString() {
+        return "UserPrincipal[id=" + id + ", username=" + username + ", roleBits=" + roleBits + "]";
+    }
+
+    private static int notificationBits(UserEntity user) {
+        int bits = 0;
+        if (user.isEmailNotificationsEnabled()) {
+            bits |= EMAIL_NOTIFICATIONS;
+        }
+        if (user.isPushNotificationsEnabled()) {
+            bits |= PUSH_NOTIFICATIONS;
+        }
+        if (user.isMarketingNotificationsEnabled()) {
+            bits |= MARKETING_NOTIFICATIONS;
+        }
+        return bits;
+    }
+}
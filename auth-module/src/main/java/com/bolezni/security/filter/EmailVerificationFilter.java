@@ -1,6 +1,6 @@
 package com.bolezni.security.filter;
 
-import com.bolezni.security.CustomUserDetails;
+import com.bolezni.security.UserPrincipal;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -39,12 +39,11 @@ public class EmailVerificationFilter extends OncePerRequestFilter {
     }
 
     private boolean isUserVerified(Authentication authentication) {
-        try {
-            CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-            return userDetails.getUser().isVerified();
-        } catch (ClassCastException e) {
-            log.error("Unexpected principal type: {}", authentication.getPrincipal().getClass());
-            return false;
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.verified();
         }
+
+        log.error("Unexpected principal type: {}", authentication.getPrincipal().getClass());
+        return false;
     }
 }
@@ -1,5 +1,7 @@
 package com.bolezni.security.jwt;
 
+import com.bolezni.security.SecurityVersionService;
+import com.bolezni.security.UserPrincipal;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -24,6 +26,8 @@ public class JwtFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final SecurityVersionService securityVersionService;
+    private final TokenRevocationService tokenRevocationService;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -46,15 +50,29 @@ public class JwtFilter extends OncePerRequestFilter {
         String token = authorizationHeader.substring(7);
 
         try {
-            String email = jwtService.extractUsername(token);
+            VerifiedToken verifiedToken = jwtService.verify(token);
+            // Refresh JWT старого формата меняется только через /auth/refresh, как access-токен он не принимается
+            if (jwtService.isLegacyRefreshToken(verifiedToken)) {
+                log.warn("Legacy refresh token used as access token by user: {}", verifiedToken.subject());
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid JWT token");
+                return;
+            }
+            if (tokenRevocationService.isRevoked(verifiedToken)) {
+                log.warn("Revoked token used by user: {}", verifiedToken.subject());
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Token has been revoked");
+                return;
+            }
+
+            String email = verifiedToken.subject();
             log.debug("Authenticating user with email: {}", email);
 
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                UserDetails userDetails = loadUserDetails(verifiedToken);
                 log.debug("Loaded user details for: {}", email);
 
 
-                if (jwtService.isValidToken(token, userDetails)) {
+                if (userDetails != null && userDetails.isAccountNonLocked()
+                        && jwtService.isValidToken(verifiedToken, userDetails)) {
                     log.debug("Token is valid for user: {}", email);
 
                     UsernamePasswordAuthenticationToken authentication =
@@ -80,4 +98,27 @@ public class JwtFilter extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private UserDetails loadUserDetails(VerifiedToken verifiedToken) {
+        // vf=false в токене устаревает после подтверждения email, а все пути за этим фильтром требуют подтверждения:
+        // такие токены проверяются по БД, чтобы пользователь не ждал обновления access-токена
+        if (!jwtService.isStatelessPrincipalEnabled() || !verifiedToken.hasPrincipalClaims()
+                || !verifiedToken.verified()) {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(verifiedToken.subject());
+            if (verifiedToken.securityVersion() != null
+                    && userDetails instanceof UserPrincipal principal
+                    && principal.securityVersion() != verifiedToken.securityVersion()) {
+                log.warn("Token security version is outdated for user: {}", verifiedToken.subject());
+                return null;
+            }
+            return userDetails;
+        }
+
+        if (!securityVersionService.isCurrent(verifiedToken.userId(), verifiedToken.securityVersion())) {
+            log.warn("Token security version is outdated for user: {}", verifiedToken.subject());
+            return null;
+        }
+
+        return UserPrincipal.from(verifiedToken);
+    }
 }
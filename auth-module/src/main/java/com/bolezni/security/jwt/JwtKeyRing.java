@@ -0,0 +1,111 @@
+package com.bolezni.security.jwt;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Набор ключей подписи JWT, каждый со своим kid.
+ * Новые токены подписываются активным ключом, проверка ищет готовый SecretKey по kid из заголовка.
+ * Неактивные ключи принимаются ещё максимальное время жизни токена, после чего выводятся из оборота.
+ */
+@Slf4j
+final class JwtKeyRing {
+
+    // kid для ключа из application.security.jwt.secret-key и токенов, выпущенных без kid
+    static final String LEGACY_KID = "default";
+
+    private final Map<String, SecretKey> keys;
+    private final Map<String, Instant> retireAt = new ConcurrentHashMap<>();
+    private final String activeKid;
+    private final SecretKey activeKey;
+
+    private JwtKeyRing(Map<String, SecretKey> keys, String activeKid, Instant retireInactiveAt) {
+        this.keys = new ConcurrentHashMap<>(keys);
+        this.activeKid = activeKid;
+        this.activeKey = keys.get(activeKid);
+        keys.keySet().stream()
+                .filter(kid -> !kid.equals(activeKid))
+                .forEach(kid -> retireAt.put(kid, retireInactiveAt));
+    }
+
+    /**
+     * @param keysSpec     ключи в формате "kid1:base64,kid2:base64"
+     * @param activeKid    kid ключа для подписи; если пуст, берётся первый из списка или legacy ключ
+     * @param legacySecret прежний одиночный ключ, доступен под kid {@link #LEGACY_KID}
+     * @param maxLifetime  максимальное время жизни токена
+     */
+    static JwtKeyRing create(String keysSpec, String activeKid, String legacySecret, Duration maxLifetime) {
+        Map<String, SecretKey> keys = new LinkedHashMap<>();
+
+        if (StringUtils.hasText(keysSpec)) {
+            for (String entry : keysSpec.split(",")) {
+                String trimmed = entry.trim();
+                int separator = trimmed.indexOf(':');
+                if (separator <= 0 || separator == trimmed.length() - 1) {
+                    throw new IllegalArgumentException("JWT key must be in format kid:base64-secret");
+                }
+                String kid = trimmed.substring(0, separator);
+                if (keys.put(kid, Keys.hmacShaKeyFor(Decoders.BASE64.decode(trimmed.substring(separator + 1)))) != null) {
+                    throw new IllegalArgumentException("Duplicate JWT key id: " + kid);
+                }
+            }
+        }
+
+        String resolvedActiveKid = StringUtils.hasText(activeKid)
+                ? activeKid
+                : keys.keySet().stream().findFirst().orElse(LEGACY_KID);
+
+        if (StringUtils.hasText(legacySecret)) {
+            keys.putIfAbsent(LEGACY_KID, Keys.hmacShaKeyFor(Decoders.BASE64.decode(legacySecret)));
+        }
+
+        if (!keys.containsKey(resolvedActiveKid)) {
+            throw new IllegalStateException("Active JWT key is not configured: " + resolvedActiveKid);
+        }
+
+        log.info("JWT key ring loaded with keys {}, active key {}", keys.keySet(), resolvedActiveKid);
+        return new JwtKeyRing(keys, resolvedActiveKid, Instant.now().plus(maxLifetime));
+    }
+
+    String activeKid() {
+        return activeKid;
+    }
+
+    SecretKey activeKey() {
+        return activeKey;
+    }
+
+    /**
+     * @return ключ для проверки или null, если kid неизвестен либо уже выведен из оборота
+     */
+    SecretKey find(String kid) {
+        return keys.get(kid != null ? kid : LEGACY_KID);
+    }
+
+    /**
+     * Удаляет неактивные ключи, все токены которых уже истекли
+     *
+     * @return true, если хотя бы один ключ удалён
+     */
+    boolean retireExpired(Instant now) {
+        boolean retired = false;
+        for (Map.Entry<String, Instant> entry : retireAt.entrySet()) {
+            if (!entry.getValue().isAfter(now)) {
+                keys.remove(entry.getKey());
+                retireAt.remove(entry.getKey());
+                log.info("JWT key {} retired", entry.getKey());
+                retired = true;
+            }
+        }
+        return retired;
+    }
+}
@@ -1,86 +1,209 @@
 package com.bolezni.security.jwt;
 
-import io.jsonwebtoken.Claims;
+import com.bolezni.security.UserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.LocatorAdapter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.UUID;
 
 
 @Service
 @RequiredArgsConstructor
 public class JwtService {
-    @Value("${application.security.jwt.secret-key}")
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_BITS_CLAIM = "rb";
+    static final String VERIFIED_CLAIM = "vf";
+    static final String NOTIFICATION_BITS_CLAIM = "nf";
+    static final String SECURITY_VERSION_CLAIM = "sv";
+
+    @Value("${application.security.jwt.secret-key:}")
     private String secretKey;
+    @Value("${application.security.jwt.keys:}")
+    private String signingKeys;
+    @Value("${application.security.jwt.active-kid:}")
+    private String activeKid;
     @Value("${application.security.jwt.expiration}")
     private long jwtExpiration;
     @Value("${application.security.jwt.refresh-token.expiration}")
     private long refreshExpiration;
+    @Value("${application.security.refresh-token.accept-legacy-jwt:true}")
+    private boolean acceptLegacyJwt;
+    @Value("${application.security.jwt.verified-cache.max-size:10000}")
+    private long verifiedCacheMaxSize;
+    @Getter
+    @Value("${application.security.jwt.stateless-principal.enabled:false}")
+    private boolean statelessPrincipalEnabled;
+
+    private final MeterRegistry meterRegistry;
+
+    private JwtKeyRing keyRing;
+    private JwtParser jwtParser;
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        // Пока принимаются refresh JWT старого формата, прежние ключи живут их полный срок
+        long maxLifetime = acceptLegacyJwt ? Math.max(jwtExpiration, refreshExpiration) : jwtExpiration;
+        keyRing = JwtKeyRing.create(signingKeys, activeKid, secretKey, Duration.ofMillis(maxLifetime));
+        // Один парсер на все ключи: по kid из заголовка берётся заранее построенный SecretKey
+        jwtParser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        SecretKey key = keyRing.find(header.getKeyId());
+                        if (key == null) {
+                            throw new JwtException("Unknown signing key: " + header.getKeyId());
+                        }
+                        return key;
+                    }
+                })
+                .build();
+
+        // Запись живёт ровно до exp токена, поэтому просроченный токен из кэша не достать
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfter(new UntilTokenExpiration())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-tokens");
+    }
 
     public String generateToken(UserDetails userDetails) {
         return buildToken(userDetails, jwtExpiration);
     }
 
-    public String generateRefreshToken(UserDetails userDetails) {
-        return buildToken(userDetails, refreshExpiration);
+    /**
+     * Проверяет подпись и срок действия токена.
+     * Повторная проверка того же токена берётся из кэша без разбора и HMAC.
+     *
+     * @param token JWT из заголовка Authorization
+     * @return проверенные claims токена
+     * @throws io.jsonwebtoken.JwtException если токен невалиден или просрочен
+     */
+    public VerifiedToken verify(String token) {
+        String key = digest(token);
+
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null && !cached.isExpired()) {
+            return cached;
+        }
+
+        VerifiedToken verified = VerifiedToken.from(jwtParser.parseSignedClaims(token).getPayload());
+        verifiedTokens.put(key, verified);
+        return verified;
+    }
+
+    /**
+     * Refresh JWT старого формата: живёт дольше access-токена. Новые refresh токены непрозрачные, JWT не бывают.
+     */
+    public boolean isLegacyRefreshToken(VerifiedToken token) {
+        return token.issuedAt() != null
+                && Duration.between(token.issuedAt(), token.expiresAt()).toMillis() > jwtExpiration;
+    }
+
+    public boolean isValidToken(VerifiedToken token, UserDetails userDetails) {
+        return token.subject().equals(userDetails.getUsername()) && !token.isExpired();
     }
 
     public boolean isValidToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return isValidToken(verify(token), userDetails);
     }
 
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
 
     public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        return Date.from(verify(token).expiresAt());
     }
 
     private String buildToken(UserDetails userDetails, long expiration) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("roles", userDetails.getAuthorities());
 
+        // Claims principal пишутся всегда, чтобы режим без БД можно было включить без перелогина
+        UserPrincipal principal = toPrincipal(userDetails);
+        if (principal != null) {
+            claims.put(USER_ID_CLAIM, principal.id());
+            claims.put(ROLE_BITS_CLAIM, principal.roleBits());
+            claims.put(VERIFIED_CLAIM, principal.verified());
+            claims.put(NOTIFICATION_BITS_CLAIM, principal.notificationBits());
+            claims.put(SECURITY_VERSION_CLAIM, principal.securityVersion());
+        }
+
         return Jwts.builder()
+                .header().keyId(keyRing.activeKid()).and()
                 .claims(claims)
+                .id(UUID.randomUUID().toString())
                 .subject(userDetails.getUsername())
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSignInKey(), Jwts.SIG.HS256)
+                .signWith(keyRing.activeKey(), Jwts.SIG.HS256)
                 .compact();
     }
 
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    @Scheduled(fixedDelayString = "${application.security.jwt.key-retirement-interval-ms:600000}")
+    public void retireExpiredKeys() {
+        if (keyRing.retireExpired(Instant.now())) {
+            // В кэше могли остаться токены, подписанные выведенным ключом
+            verifiedTokens.invalidateAll();
+        }
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    private static UserPrincipal toPrincipal(UserDetails userDetails) {
+        return userDetails instanceof UserPrincipal principal ? principal : null;
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
-    private SecretKey getSignInKey() {
-        byte[] secretKeyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(secretKeyBytes);
-    }
+    private static final class UntilTokenExpiration implements Expiry<String, VerifiedToken> {
 
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
@@ -0,0 +1,208 @@
+package com.bolezni.security.jwt;
+
+import com.bolezni.model.RevokedTokenEntity;
+import com.bolezni.repository.RevokedTokenRepository;
+import com.bolezni.utils.BloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Список отозванных JWT.
+ * Каждый запрос сначала проверяется по фильтру Блума в памяти, в БД идёт только положительное срабатывание.
+ * Фильтр пересобирается по расписанию: так подтягиваются отзывы с других инстансов и выпадают истёкшие записи.
+ * Сами истёкшие записи удаляет {@link com.bolezni.security.ExpiredTokenPurger}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenRevocationService {
+
+    private static final String USER_KEY_PREFIX = "uid:";
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${application.security.jwt.expiration}")
+    private long jwtExpiration;
+
+    @Value("${application.security.jwt.revocation.expected-entries:100000}")
+    private long expectedEntries;
+
+    @Value("${application.security.jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${application.security.jwt.revocation.sync-interval-ms:30000}")
+    private long syncIntervalMs;
+
+    private volatile BloomFilter filter;
+    // Отзывы этого инстанса, которые могли не попасть в выборку идущей пересборки
+    private Cache<String, Boolean> recentRevocations;
+    private Cache<String, Optional<Revocation>> exactLookups;
+    private Counter bloomNegatives;
+    private Counter bloomFalsePositives;
+    private Counter revokedHits;
+
+    @PostConstruct
+    void init() {
+        recentRevocations = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(syncIntervalMs * 2))
+                .build();
+        exactLookups = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMillis(syncIntervalMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, exactLookups, "jwt.revocation.lookups");
+
+        bloomNegatives = meterRegistry.counter("jwt.revocation.checks", "result", "negative");
+        bloomFalsePositives = meterRegistry.counter("jwt.revocation.checks", "result", "false_positive");
+        revokedHits = meterRegistry.counter("jwt.revocation.checks", "result", "revoked");
+
+        sync();
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        if (token.tokenId() != null && isKeyRevoked(token.tokenId(), null)) {
+            return true;
+        }
+        return token.userId() != null && isKeyRevoked(USER_KEY_PREFIX + token.userId(), token);
+    }
+
+    @Transactional
+    public void revoke(VerifiedToken token) {
+        if (token.tokenId() == null) {
+            log.warn("Token of user {} has no jti and cannot be revoked individually", token.subject());
+            return;
+        }
+        if (token.isExpired()) {
+            return;
+        }
+
+        store(token.tokenId(), token.expiresAt(), null);
+        log.info("Token {} of user {} revoked", token.tokenId(), token.subject());
+    }
+
+    /**
+     * Отзывает все токены пользователя, выпущенные до текущего момента
+     *
+     * @param securityVersion версия безопасности после отзыва, см. {@link com.bolezni.security.SecurityVersionService#bump}
+     */
+    @Transactional
+    public void revokeAllForUser(String userId, long securityVersion) {
+        Instant expiresAt = Instant.now().plusMillis(jwtExpiration);
+        store(USER_KEY_PREFIX + userId, expiresAt, securityVersion);
+        log.info("All tokens of user {} revoked", userId);
+    }
+
+    /**
+     * Записывает ключ в список отозванных, если его там ещё нет. Из одновременных вызовов true получает только один.
+     *
+     * @return false, если ключ уже был отозван
+     */
+    @Transactional
+    public boolean revokeOnce(String key, Instant expiresAt) {
+        if (revokedTokenRepository.insertIfAbsent(key, Instant.now(), expiresAt) == 0) {
+            return false;
+        }
+        remember(key);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${application.security.jwt.revocation.sync-interval-ms:30000}",
+            initialDelayString = "${application.security.jwt.revocation.sync-interval-ms:30000}")
+    public void sync() {
+        List<String> activeKeys = revokedTokenRepository.findActiveKeys(Instant.now());
+
+        BloomFilter rebuilt = BloomFilter.create(Math.max(expectedEntries, activeKeys.size() * 2L), falsePositiveRate);
+        activeKeys.forEach(rebuilt::put);
+        recentRevocations.asMap().keySet().forEach(rebuilt::put);
+
+        filter = rebuilt;
+        // Отзыв, записанный после копирования recentRevocations, но до замены, попал только в старый фильтр.
+        // store() кладёт ключ в recentRevocations до записи в filter, поэтому такой ключ виден этому повторному проходу
+        recentRevocations.asMap().keySet().forEach(rebuilt::put);
+        log.debug("Revocation filter rebuilt with {} entries", activeKeys.size());
+    }
+
+    /**
+     * @param token токен для проверки отзыва по пользователю; null для отзыва конкретного jti
+     */
+    private boolean isKeyRevoked(String key, VerifiedToken token) {
+        if (!filter.mightContain(key)) {
+            bloomNegatives.increment();
+            return false;
+        }
+
+        Optional<Revocation> revocation = exactLookups.get(key,
+                k -> revokedTokenRepository.findActive(k, Instant.now()).map(Revocation::of));
+
+        boolean revoked = revocation.isPresent() && (token == null || revocation.get().covers(token));
+        if (revoked) {
+            revokedHits.increment();
+        } else {
+            bloomFalsePositives.increment();
+        }
+        return revoked;
+    }
+
+    private void store(String key, Instant expiresAt, Long securityVersion) {
+        revokedTokenRepository.save(RevokedTokenEntity.builder()
+                .tokenKey(key)
+                .revokedAt(Instant.now())
+                .expiresAt(expiresAt)
+                .securityVersion(securityVersion)
+                .build());
+        remember(key);
+    }
+
+    private void remember(String key) {
+        recentRevocations.put(key, Boolean.TRUE);
+        filter.put(key);
+        exactLookups.invalidate(key);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    exactLookups.invalidate(key);
+                }
+            });
+        }
+    }
+
+    private record Revocation(Instant revokedAt, Long securityVersion) {
+
+        static Revocation of(RevokedTokenEntity entity) {
+            return new Revocation(entity.getRevokedAt(), entity.getSecurityVersion());
+        }
+
+        /**
+         * Отзыв по пользователю сравнивается по версии безопасности: iat в токене с точностью до секунды,
+         * и токен, выпущенный в ту же секунду после отзыва, по времени считался бы отозванным.
+         * По времени проверяются только токены и записи без версии.
+         */
+        boolean covers(VerifiedToken token) {
+            if (securityVersion != null && token.securityVersion() != null) {
+                return token.securityVersion() < securityVersion;
+            }
+            return token.issuedAt() == null || !token.issuedAt().isAfter(revokedAt);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.bolezni.security.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+
+import java.time.Instant;
+
+/**
+ * Результат проверки подписи JWT.
+ * Неизменяемый, поэтому один экземпляр безопасно отдавать из кэша в разные потоки.
+ * Поля principal (userId, roleBits, verified, notificationBits, securityVersion) пусты у токенов, выпущенных до их появления.
+ */
+public record VerifiedToken(
+        String subject,
+        String tokenId,
+        Instant issuedAt,
+        Instant expiresAt,
+        String userId,
+        Integer roleBits,
+        Boolean verified,
+        Integer notificationBits,
+        Long securityVersion
+) {
+
+    static VerifiedToken from(Claims claims) {
+        if (claims.getExpiration() == null) {
+            throw new JwtException("Token has no expiration");
+        }
+
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.getId(),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration().toInstant(),
+                claims.get(JwtService.USER_ID_CLAIM, String.class),
+                claims.get(JwtService.ROLE_BITS_CLAIM, Integer.class),
+                claims.get(JwtService.VERIFIED_CLAIM, Boolean.class),
+                claims.get(JwtService.NOTIFICATION_BITS_CLAIM, Integer.class),
+                claims.get(JwtService.SECURITY_VERSION_CLAIM, Long.class)
+        );
+    }
+
+    public boolean isExpired() {
+        return expiresAt.isBefore(Instant.now());
+    }
+
+    public boolean hasPrincipalClaims() {
+        return userId != null && roleBits != null && verified != null
+                && notificationBits != null && securityVersion != null;
+    }
+}
@@ -4,13 +4,17 @@ import com.bolezni.dto.*;
 
 public interface AuthService {
 
-    LoginResponse login(LoginRequest loginRequest);
+    LoginResponse login(LoginRequest loginRequest, String clientIp);
 
     void register(RegisterRequest registerRequest);
 
+    boolean isUsernameAvailable(String username);
+
     void sendTokenForResetPassword(String email);
 
     void resetPassword(ResetPasswordDto resetPasswordDto);
 
     LoginResponse refreshJwtToken(RefreshTokenDto refreshTokenDto);
+
+    void logout(String authorizationHeader, RefreshTokenDto refreshTokenDto);
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.bolezni.service;
+
+public interface UserAvailabilityService {
+
+    /**
+     * false - этому инстансу пользователь с таким username или email не известен, проверку в БД можно пропустить.
+     * Вставку всё равно страхуют уникальные индексы: регистрации других инстансов видны только после пересборки.
+     */
+    boolean mightExist(String username, String email);
+
+    /**
+     * Рекомендательный ответ: username, занятый на другом инстансе, до пересборки фильтра может считаться свободным
+     */
+    boolean isUsernameAvailable(String username);
+
+    /**
+     * Добавляет нового пользователя в фильтр
+     */
+    void register(String username, String email);
+}
@@ -0,0 +1,16 @@
+package com.bolezni.service;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface UserImportService {
+
+    enum Format {
+        CSV, JSONL
+    }
+
+    /**
+     * Создаёт пользователей из потока CSV или JSONL и пишет в out результат по каждой строке в формате JSONL
+     */
+    void importUsers(InputStream in, Format format, boolean verified, OutputStream out);
+}
@@ -2,23 +2,31 @@ package com.bolezni.service.impl;
 
 import com.bolezni.dto.*;
 import com.bolezni.events.ResetPasswordEvent;
+import com.bolezni.events.UserChangedEvent;
 import com.bolezni.model.PasswordResetTokenEntity;
 import com.bolezni.model.Roles;
 import com.bolezni.model.UserEntity;
 import com.bolezni.repository.PasswordResetTokenRepository;
 import com.bolezni.repository.UserRepository;
-import com.bolezni.security.CustomUserDetails;
+import com.bolezni.security.LoginAttemptLimiter;
+import com.bolezni.security.RefreshTokenService;
+import com.bolezni.security.SecurityVersionService;
+import com.bolezni.security.UserPrincipal;
 import com.bolezni.security.jwt.JwtService;
+import com.bolezni.security.jwt.TokenRevocationService;
+import com.bolezni.security.jwt.VerifiedToken;
 import com.bolezni.service.AuthService;
+import com.bolezni.service.UserAvailabilityService;
 import com.bolezni.service.VerificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -39,34 +47,45 @@ public class AuthServiceImpl implements AuthService {
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
     private final VerificationService emailVerificationService;
-    private final UserDetailsService userDetailsService;
     private final ApplicationEventPublisher eventPublisher;
     private final PasswordResetTokenRepository resetTokenRepository;
+    private final SecurityVersionService securityVersionService;
+    private final TokenRevocationService tokenRevocationService;
+    private final LoginAttemptLimiter loginAttemptLimiter;
+    private final RefreshTokenService refreshTokenService;
+    private final UserAvailabilityService userAvailabilityService;
 
     @Override
-    public LoginResponse login(LoginRequest loginRequest) {
+    public LoginResponse login(LoginRequest loginRequest, String clientIp) {
         if (loginRequest == null) {
             throw new IllegalArgumentException("loginRequest cannot be null");
         }
 
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.username(),
-                        loginRequest.password()));
+        loginAttemptLimiter.checkAllowed(loginRequest.username(), clientIp);
+
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginRequest.username(),
+                            loginRequest.password()));
+        } catch (AuthenticationException e) {
+            loginAttemptLimiter.recordFailure(loginRequest.username(), clientIp);
+            throw e;
+        }
+        loginAttemptLimiter.recordSuccess(loginRequest.username());
 
         log.info("Authenticated user: {} with roles {}", authentication.getName(), authentication.getAuthorities());
 
-        CustomUserDetails userDetails = (CustomUserDetails) authentication.getPrincipal();
-
-        String jwtToken = jwtService.generateToken(userDetails);
-        String refreshToken = jwtService.generateRefreshToken(userDetails);
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
 
-        UserEntity user = userDetails.getUser();
+        String jwtToken = jwtService.generateToken(principal);
+        String refreshToken = refreshTokenService.issue(principal.id());
 
         return new LoginResponse(
-                user.getId(),
-                user.getUsername(),
-                user.getEmail(),
+                principal.id(),
+                principal.username(),
+                principal.email(),
                 jwtToken,
                 refreshToken
         );
@@ -83,17 +102,31 @@ public class AuthServiceImpl implements AuthService {
         String username = registerRequest.username();
         String email = registerRequest.email();
 
-        if (userRepository.existsByUsernameOrEmail(username, email)) {
+        // В БД идём только если фильтр допускает совпадение
+        if (userAvailabilityService.mightExist(username, email)
+                && userRepository.existsByUsernameOrEmail(username, email)) {
             throw new IllegalArgumentException("Username or email already exists");
         }
 
         UserEntity userEntity = createNewUser(registerRequest, registerRequest.roles());
 
-        UserEntity savedUser = userRepository.save(userEntity);
+        UserEntity savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(userEntity);
+        } catch (DataIntegrityViolationException e) {
+            // Пользователя создали на другом инстансе или параллельным запросом после последней пересборки фильтра
+            throw new IllegalArgumentException("Username or email already exists");
+        }
+        userAvailabilityService.register(username, email);
 
         emailVerificationService.createVerificationToken(savedUser);
     }
 
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        return userAvailabilityService.isUsernameAvailable(username);
+    }
+
     @Override
     @Transactional
     public void sendTokenForResetPassword(String email) {
@@ -150,6 +183,9 @@ public class AuthServiceImpl implements AuthService {
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
         resetTokenRepository.delete(resetTokenEntity);
+        long securityVersion = securityVersionService.bump(user.getId());
+        tokenRevocationService.revokeAllForUser(user.getId(), securityVersion);
+        eventPublisher.publishEvent(new UserChangedEvent(this, user.getUsername()));
     }
 
     @Override
@@ -159,38 +195,32 @@ public class AuthServiceImpl implements AuthService {
             throw new IllegalArgumentException("refreshTokenDto is null");
         }
 
-        String refreshToken = refreshTokenDto.refreshToken();
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(refreshTokenDto.refreshToken());
+        UserPrincipal principal = rotation.principal();
 
-        String username = jwtService.extractUsername(refreshToken);
-        if (username == null || username.trim().isEmpty()) {
-            log.warn("Username extracted from refresh token is null or empty");
-            throw new IllegalArgumentException("Invalid refresh token: cannot extract username");
-        }
-        CustomUserDetails userDetails;
-        try{
-            userDetails = (CustomUserDetails) userDetailsService.loadUserByUsername(username);
-        }catch (Exception e){
-            log.warn("Couldn't upload user data for username: {}", username);
-            throw new IllegalArgumentException("Invalid refresh token: user not found");
-
-        }
+        return new LoginResponse(
+                principal.id(),
+                principal.username(),
+                principal.email(),
+                jwtService.generateToken(principal),
+                rotation.refreshToken()
+        );
+    }
 
-        if (!jwtService.isValidToken(refreshToken, userDetails)) {
-            log.warn("Invalid refresh token for user: {}", username);
-            throw new IllegalArgumentException("Refresh token is invalid or expired");
+    @Override
+    @Transactional
+    public void logout(String authorizationHeader, RefreshTokenDto refreshTokenDto) {
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            log.error("Authorization header is missing");
+            throw new IllegalArgumentException("Authorization header is missing");
         }
 
-        String newJwtToken = jwtService.generateToken(userDetails);
-        String newRefreshToken = jwtService.generateRefreshToken(userDetails);
+        VerifiedToken accessToken = jwtService.verify(authorizationHeader.substring(7));
+        tokenRevocationService.revoke(accessToken);
 
-        return new LoginResponse(
-                userDetails.getUser().getId(),
-                userDetails.getUser().getUsername(),
-                userDetails.getUser().getEmail(),
-                newJwtToken,
-                newRefreshToken
-
-        );
+        if (refreshTokenDto != null && StringUtils.hasText(refreshTokenDto.refreshToken()) && accessToken.userId() != null) {
+            refreshTokenService.revokeFamily(refreshTokenDto.refreshToken(), accessToken.userId());
+        }
     }
 
     private UserEntity createNewUser(RegisterRequest registerRequest, Set<String> roles) {
@@ -1,12 +1,13 @@
 package com.bolezni.service.impl;
 
 import com.bolezni.dto.VerifyEmailRequest;
+import com.bolezni.events.UserChangedEvent;
 import com.bolezni.events.UserRegisteredEvent;
-import com.bolezni.model.EmailVerificationToken;
 import com.bolezni.model.UserEntity;
-import com.bolezni.repository.EmailVerificationTokenRepository;
 import com.bolezni.repository.UserRepository;
 import com.bolezni.service.VerificationService;
+import com.bolezni.service.verification.VerificationTokenRecord;
+import com.bolezni.service.verification.VerificationTokenStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -24,7 +25,7 @@ import java.util.UUID;
 @Service
 @RequiredArgsConstructor
 public class EmailVerificationService implements VerificationService {
-    private final EmailVerificationTokenRepository emailTokenRepository;
+    private final VerificationTokenStore tokenStore;
     private final UserRepository userRepository;
     private final ApplicationEventPublisher eventPublisher;
 
@@ -42,20 +43,10 @@ public class EmailVerificationService implements VerificationService {
         }
 
 
-        EmailVerificationToken token = emailTokenRepository.findByVerificationCodeAndEmail(request.getVerificationCode(), request.getEmail())
+        VerificationTokenRecord token = tokenStore.findByCodeAndEmail(request.getVerificationCode(), request.getEmail())
                 .orElseThrow(() -> new IllegalArgumentException("Code not found"));
 
-        UserEntity user = token.getUser();
-
-        checkUserVerification(user, token);
-
-        token.setIsUsed(true);
-        user.setVerified(true);
-
-        emailTokenRepository.save(token);
-        userRepository.save(user);
-
-        emailTokenRepository.deleteByEmail(user.getEmail());
+        verify(token);
 
         log.info("Email verified successfully for: {}", request.getEmail());
     }
@@ -65,45 +56,27 @@ public class EmailVerificationService implements VerificationService {
     public void verifyByCode(String tokenValue) {
         Objects.requireNonNull(tokenValue, "Token cannot be null");
 
-        EmailVerificationToken token = emailTokenRepository.findByToken(tokenValue)
+        VerificationTokenRecord token = tokenStore.findByToken(tokenValue)
                 .orElseThrow(() -> new IllegalArgumentException("Invalid verification token"));
 
-        UserEntity user = token.getUser();
-
-        checkUserVerification(user, token);
+        verify(token);
 
-        token.setIsUsed(true);
-        user.setVerified(true);
-
-        emailTokenRepository.save(token);
-        userRepository.save(user);
-
-        emailTokenRepository.deleteByEmail(user.getEmail());
-
-        log.info("Email verified successfully for: {}", user.getEmail());
+        log.info("Email verified successfully for: {}", token.email());
     }
 
     @Override
-    @Transactional
     public void createVerificationToken(UserEntity user) {
-        emailTokenRepository.deleteByEmail(user.getEmail());
-
-        String token = generateToken();
-        String verificationCode = generateVerificationCode();
-
-        EmailVerificationToken verificationToken = EmailVerificationToken.builder()
-                .token(token)
-                .email(user.getEmail())
-                .verificationCode(verificationCode)
-                .user(user)
-                .createdAt(LocalDateTime.now())
-                .expiresAt(LocalDateTime.now().plusMinutes(expirationMinutes))
-                .isUsed(false)
-                .build();
+        VerificationTokenRecord verificationToken = new VerificationTokenRecord(
+                generateToken(),
+                user.getEmail(),
+                generateVerificationCode(),
+                user.getId(),
+                LocalDateTime.now().plusMinutes(expirationMinutes)
+        );
 
-        var savedEmailToken = emailTokenRepository.save(verificationToken);
+        tokenStore.save(verificationToken);
 
-        publishEvent(savedEmailToken);
+        publishEvent(verificationToken, user.getFirstName());
         log.info("Created verification token for email: {}", user.getEmail());
 
     }
@@ -123,13 +96,10 @@ public class EmailVerificationService implements VerificationService {
             throw new IllegalArgumentException("Email is already verified");
         }
 
-        Optional<EmailVerificationToken> existingToken = emailTokenRepository.findByEmailAndIsUsedFalse(email);
+        Optional<VerificationTokenRecord> existingToken = tokenStore.findByEmail(email);
 
         if (existingToken.isPresent() && !existingToken.get().isExpired()) {
-            String code = existingToken.get().getVerificationCode();
-
-
-            publishEvent(existingToken.get(), code);
+            publishEvent(existingToken.get(), user.getFirstName());
 
             log.info("Resent existing verification code for email: {}", email);
         } else {
@@ -139,15 +109,20 @@ public class EmailVerificationService implements VerificationService {
         }
     }
 
-//    @Scheduled(fixedRate = 3600000) // каждый час
-//    @Transactional
-//    public void cleanupExpiredTokens() {
-//        LocalDateTime cutoff = LocalDateTime.now();
-//        emailTokenRepository.deleteByExpiresAtBefore(cutoff);
-//        log.info("Cleaned up expired verification tokens before: {}", cutoff);
-//    }
+    private void verify(VerificationTokenRecord token) {
+        UserEntity user = userRepository.findById(token.userId())
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        checkUserVerification(user, token);
+
+        user.setVerified(true);
+        userRepository.save(user);
+
+        tokenStore.removeByEmail(token.email());
+        eventPublisher.publishEvent(new UserChangedEvent(this, user.getUsername()));
+    }
 
-    private void checkUserVerification(UserEntity user, EmailVerificationToken token) {
+    private void checkUserVerification(UserEntity user, VerificationTokenRecord token) {
         if (user.isVerified()) {
             log.info("User already verified");
             return;
@@ -155,14 +130,9 @@ public class EmailVerificationService implements VerificationService {
 
         if (token.isExpired()) {
             log.warn("Verification failed: Expired token for email {}", user.getEmail());
-            emailTokenRepository.delete(token);
+            tokenStore.removeByEmail(token.email());
             throw new IllegalArgumentException("Verification token has expired");
         }
-
-        if (token.getIsUsed()) {
-            log.warn("Verification failed: Token already used for email {}", user.getEmail());
-            throw new IllegalArgumentException("Verification token has already been used");
-        }
     }
 
     private String generateToken() {
@@ -175,24 +145,13 @@ public class EmailVerificationService implements VerificationService {
         return String.valueOf(code);
     }
 
-    private void publishEvent(EmailVerificationToken verificationToken) {
-        eventPublisher.publishEvent(new UserRegisteredEvent(
-                this,
-                verificationToken.getEmail(),
-                verificationToken.getUser().getFirstName(),
-                verificationToken.getToken(),
-                verificationToken.getVerificationCode()
-
-        ));
-    }
-
-    private void publishEvent(EmailVerificationToken verificationToken, String verificationCode) {
+    private void publishEvent(VerificationTokenRecord verificationToken, String firstName) {
         eventPublisher.publishEvent(new UserRegisteredEvent(
                 this,
-                verificationToken.getEmail(),
-                verificationToken.getUser().getFirstName(),
-                verificationToken.getToken(),
-                verificationCode
+                verificationToken.email(),
+                firstName,
+                verificationToken.token(),
+                verificationToken.verificationCode()
 
         ));
     }
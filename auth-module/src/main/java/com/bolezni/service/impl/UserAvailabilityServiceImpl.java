@@ -0,0 +1,137 @@
+package com.bolezni.service.impl;
+
+import com.bolezni.repository.UserRepository;
+import com.bolezni.service.UserAvailabilityService;
+import com.bolezni.utils.BloomFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фильтр Блума по username и email всех пользователей.
+ * Отрицательный ответ точен только для пользователей, известных этому инстансу: регистрации на других инстансах
+ * и удалённые пользователи подтягиваются пересборкой по расписанию (rebuild-interval-ms).
+ * Поэтому ответ о доступности username - подсказка для формы регистрации, а окончательное решение
+ * всегда остаётся за уникальными индексами _user.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserAvailabilityServiceImpl implements UserAvailabilityService {
+
+    private static final String USERNAME_PREFIX = "u:";
+    private static final String EMAIL_PREFIX = "e:";
+
+    private final DataSource dataSource;
+    private final PlatformTransactionManager transactionManager;
+    private final UserRepository userRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.user-availability.expected-entries:100000}")
+    private long expectedEntries;
+
+    @Value("${app.user-availability.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${app.user-availability.rebuild-interval-ms:600000}")
+    private long rebuildIntervalMs;
+
+    private volatile BloomFilter filter;
+    // Регистрации этого инстанса, которые могли не попасть в выборку идущей пересборки
+    private Cache<String, Boolean> recentKeys;
+    private JdbcTemplate streamingJdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private Counter bloomNegatives;
+    private Counter bloomPositives;
+
+    @PostConstruct
+    void init() {
+        recentKeys = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(rebuildIntervalMs * 2))
+                .build();
+
+        // PostgreSQL отдаёт строки курсором только с fetchSize внутри транзакции
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(5_000);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        bloomNegatives = meterRegistry.counter("users.availability.checks", "result", "negative");
+        bloomPositives = meterRegistry.counter("users.availability.checks", "result", "possible");
+
+        rebuild();
+    }
+
+    @Override
+    public boolean mightExist(String username, String email) {
+        BloomFilter current = filter;
+        boolean possible = current.mightContain(USERNAME_PREFIX + username)
+                || current.mightContain(EMAIL_PREFIX + email);
+        (possible ? bloomPositives : bloomNegatives).increment();
+        return possible;
+    }
+
+    @Override
+    public boolean isUsernameAvailable(String username) {
+        if (!StringUtils.hasText(username)) {
+            throw new IllegalArgumentException("Username is empty");
+        }
+
+        if (!filter.mightContain(USERNAME_PREFIX + username)) {
+            bloomNegatives.increment();
+            return true;
+        }
+        bloomPositives.increment();
+        return userRepository.findByUsername(username).isEmpty();
+    }
+
+    @Override
+    public void register(String username, String email) {
+        String usernameKey = USERNAME_PREFIX + username;
+        String emailKey = EMAIL_PREFIX + email;
+
+        recentKeys.put(usernameKey, Boolean.TRUE);
+        recentKeys.put(emailKey, Boolean.TRUE);
+        filter.put(usernameKey);
+        filter.put(emailKey);
+    }
+
+    @Scheduled(fixedDelayString = "${app.user-availability.rebuild-interval-ms:600000}",
+            initialDelayString = "${app.user-availability.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        AtomicLong users = new AtomicLong();
+
+        BloomFilter rebuilt = readOnlyTransaction.execute(status -> {
+            Long count = streamingJdbcTemplate.queryForObject("SELECT count(*) FROM _user", Long.class);
+            long expected = Math.max(expectedEntries, (count != null ? count : 0) * 4);
+
+            BloomFilter next = BloomFilter.create(expected, falsePositiveRate);
+            streamingJdbcTemplate.query("SELECT username, email FROM _user", rs -> {
+                next.put(USERNAME_PREFIX + rs.getString(1));
+                next.put(EMAIL_PREFIX + rs.getString(2));
+                users.incrementAndGet();
+            });
+            return next;
+        });
+
+        recentKeys.asMap().keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        log.info("User availability filter rebuilt with {} users in {} ms", users.get(), System.currentTimeMillis() - start);
+    }
+}
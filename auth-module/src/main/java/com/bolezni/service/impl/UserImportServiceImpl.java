@@ -0,0 +1,388 @@
+package com.bolezni.service.impl;
+
+import com.bolezni.dto.RegisterRequest;
+import com.bolezni.dto.UserImportResult;
+import com.bolezni.model.Roles;
+import com.bolezni.security.BoundedPasswordEncoder;
+import com.bolezni.service.UserAvailabilityService;
+import com.bolezni.service.UserImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Массовое создание пользователей.
+ * Вход читается построчно и обрабатывается пачками фиксированного размера, поэтому память не зависит от размера файла.
+ * Пароли хэшируются параллельно на собственном ограниченном пуле импорта, мимо пула логинов,
+ * вставка идёт JDBC batch'ами в одной транзакции на пачку.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserImportServiceImpl implements UserImportService {
+
+    private static final String INSERT_USER = "INSERT INTO _user (id, first_name, last_name, username, email, password, " +
+            "is_verified, is_locked, security_version, email_notifications_enabled, push_notifications_enabled, " +
+            "marketing_notifications_enabled, created_at, update_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, false, 0, true, true, false, ?, ?) " +
+            "ON CONFLICT DO NOTHING";
+
+    // Роль вставляется только если строка пользователя действительно создана
+    private static final String INSERT_ROLE = "INSERT INTO user_roles (user_id, roles) " +
+            "SELECT ?, ? WHERE EXISTS (SELECT 1 FROM _user WHERE id = ?)";
+
+    private static final String SELECT_EXISTING = "SELECT username, email FROM _user " +
+            "WHERE username IN (:usernames) OR email IN (:emails)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final UserAvailabilityService userAvailabilityService;
+
+    @Value("${app.user-import.batch-size:500}")
+    private int batchSize;
+
+    // 0 - половина ядер, чтобы импорт не занимал все ядра и логины продолжали проходить
+    @Value("${app.user-import.hashing-threads:0}")
+    private int hashingThreads;
+
+    private ThreadPoolExecutor hashingExecutor;
+    private PasswordEncoder hashingEncoder;
+    private TransactionTemplate transactionTemplate;
+
+    private record PendingRow(long line, RegisterRequest request, Set<Roles> roles) {
+    }
+
+    private record PreparedUser(PendingRow row, String id, String passwordHash) {
+    }
+
+    @PostConstruct
+    void init() {
+        int threads = hashingThreads > 0
+                ? hashingThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadNumber = new AtomicInteger();
+        hashingExecutor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "user-import-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // Несколько одновременных импортов: лишние задачи выполняет сам поток импорта
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        // Очередь и таймаут пула логинов импорту не нужны: ограничение даёт собственный пул
+        hashingEncoder = passwordEncoder instanceof BoundedPasswordEncoder bounded
+                ? bounded.unbounded()
+                : passwordEncoder;
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashingExecutor.shutdown();
+    }
+
+    @Override
+    public void importUsers(InputStream in, Format format, boolean verified, OutputStream out) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        List<String> header = null;
+        long lineNumber = 0;
+        long created = 0;
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = parseCsvLine(line).stream()
+                            .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                            .toList();
+                    continue;
+                }
+
+                try {
+                    RegisterRequest request = format == Format.CSV
+                            ? fromCsv(header, parseCsvLine(line))
+                            : objectMapper.readValue(line, RegisterRequest.class);
+                    batch.add(new PendingRow(lineNumber, request, validate(request)));
+                } catch (IllegalArgumentException | JsonProcessingException e) {
+                    write(writer, new UserImportResult(lineNumber, null, UserImportResult.Status.INVALID, e.getMessage()));
+                }
+
+                if (batch.size() >= batchSize) {
+                    created += processBatch(batch, verified, writer);
+                    batch.clear();
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                created += processBatch(batch, verified, writer);
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        log.info("User import finished: {} lines read, {} users created", lineNumber, created);
+    }
+
+    private long processBatch(List<PendingRow> batch, boolean verified, Writer writer) throws IOException {
+        List<UserImportResult> results = new ArrayList<>(batch.size());
+
+        // Повторы внутри пачки отсекаются в памяти, с уже существующими пользователями - одним запросом на пачку
+        Set<String> existing = findExisting(batch);
+        Set<String> seenUsernames = new HashSet<>();
+        Set<String> seenEmails = new HashSet<>();
+        List<PendingRow> accepted = new ArrayList<>(batch.size());
+        for (PendingRow row : batch) {
+            String username = row.request().username();
+            String email = row.request().email();
+            if (existing.contains("u:" + username) || existing.contains("e:" + email)
+                    || seenUsernames.contains(username) || seenEmails.contains(email)) {
+                results.add(result(row, UserImportResult.Status.DUPLICATE, "Username or email already exists"));
+                continue;
+            }
+            seenUsernames.add(username);
+            seenEmails.add(email);
+            accepted.add(row);
+        }
+
+        List<CompletableFuture<String>> hashes = accepted.stream()
+                .map(row -> CompletableFuture.supplyAsync(
+                        () -> hashingEncoder.encode(row.request().password()), hashingExecutor))
+                .toList();
+
+        List<PreparedUser> users = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            try {
+                users.add(new PreparedUser(accepted.get(i), UUID.randomUUID().toString(), hashes.get(i).join()));
+            } catch (CompletionException e) {
+                results.add(result(accepted.get(i), UserImportResult.Status.FAILED, "Password hashing failed"));
+            }
+        }
+
+        long created = 0;
+        if (!users.isEmpty()) {
+            try {
+                int[] counts = transactionTemplate.execute(status -> insert(users, verified));
+                for (int i = 0; i < users.size(); i++) {
+                    // 0 - строку не вставил ON CONFLICT: пользователя успели создать параллельно
+                    boolean inserted = counts == null || counts[i] != 0;
+                    results.add(result(users.get(i).row(),
+                            inserted ? UserImportResult.Status.CREATED : UserImportResult.Status.DUPLICATE,
+                            inserted ? null : "Username or email already exists"));
+                    if (inserted) {
+                        created++;
+                        RegisterRequest request = users.get(i).row().request();
+                        userAvailabilityService.register(request.username(), request.email());
+                    }
+                }
+            } catch (DataAccessException e) {
+                log.error("User import batch failed: {}", e.getMessage());
+                users.forEach(user -> results.add(result(user.row(), UserImportResult.Status.FAILED, "Database error")));
+            }
+        }
+
+        results.sort(Comparator.comparingLong(UserImportResult::line));
+        for (UserImportResult result : results) {
+            write(writer, result);
+        }
+        writer.flush();
+        return created;
+    }
+
+    private Set<String> findExisting(List<PendingRow> batch) {
+        // Строки, для которых фильтр точно не видит совпадений, в запрос не попадают
+        List<PendingRow> candidates = batch.stream()
+                .filter(row -> userAvailabilityService.mightExist(row.request().username(), row.request().email()))
+                .toList();
+        if (candidates.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("usernames", candidates.stream().map(row -> row.request().username()).toList())
+                .addValue("emails", candidates.stream().map(row -> row.request().email()).toList());
+
+        Set<String> existing = new HashSet<>();
+        jdbcTemplate.query(SELECT_EXISTING, params, rs -> {
+            existing.add("u:" + rs.getString("username"));
+            existing.add("e:" + rs.getString("email"));
+        });
+        return existing;
+    }
+
+    private int[] insert(List<PreparedUser> users, boolean verified) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        int[] counts = jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_USER, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                PreparedUser user = users.get(i);
+                RegisterRequest request = user.row().request();
+                ps.setString(1, user.id());
+                ps.setString(2, request.firstname());
+                ps.setString(3, request.lastname());
+                ps.setString(4, request.username());
+                ps.setString(5, request.email());
+                ps.setString(6, user.passwordHash());
+                ps.setBoolean(7, verified);
+                ps.setTimestamp(8, now);
+                ps.setTimestamp(9, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return users.size();
+            }
+        });
+
+        List<Object[]> roles = new ArrayList<>();
+        for (PreparedUser user : users) {
+            for (Roles role : user.row().roles()) {
+                roles.add(new Object[]{user.id(), role.name(), user.id()});
+            }
+        }
+        jdbcTemplate.getJdbcTemplate().batchUpdate(INSERT_ROLE, roles);
+
+        return counts;
+    }
+
+    private static Set<Roles> validate(RegisterRequest request) {
+        if (!StringUtils.hasText(request.username()) || !StringUtils.hasText(request.email())
+                || !StringUtils.hasText(request.firstname()) || !StringUtils.hasText(request.lastname())) {
+            throw new IllegalArgumentException("firstname, lastname, email and username are required");
+        }
+        if (request.password() == null || request.password().length() < 6) {
+            throw new IllegalArgumentException("Password must be at least 6 characters");
+        }
+
+        Set<Roles> roles = EnumSet.noneOf(Roles.class);
+        if (request.roles() != null) {
+            for (String role : request.roles()) {
+                roles.add(Roles.valueOf(role.trim().toUpperCase(Locale.ROOT)));
+            }
+        }
+        if (roles.isEmpty()) {
+            roles.add(Roles.CLIENT);
+        }
+        return roles;
+    }
+
+    private static RegisterRequest fromCsv(List<String> header, List<String> values) {
+        if (header == null) {
+            throw new IllegalArgumentException("CSV header is missing");
+        }
+
+        Map<String, String> row = new HashMap<>();
+        for (int i = 0; i < header.size() && i < values.size(); i++) {
+            row.put(header.get(i), values.get(i).trim());
+        }
+
+        String roles = row.get("roles");
+        return new RegisterRequest(
+                row.get("firstname"),
+                row.get("lastname"),
+                row.get("email"),
+                row.get("username"),
+                row.get("password"),
+                StringUtils.hasText(roles) ? Set.of(roles.split("[|;]")) : Set.of()
+        );
+    }
+
+    // Поля через запятую, значения в двойных кавычках могут содержать запятые и "" как экранированную кавычку
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static UserImportResult result(PendingRow row, UserImportResult.Status status, String message) {
+        return new UserImportResult(row.line(), row.request().username(), status, message);
+    }
+
+    private void write(Writer writer, UserImportResult result) throws IOException {
+        writer.write(objectMapper.writeValueAsString(result));
+        writer.write('\n');
+    }
+}
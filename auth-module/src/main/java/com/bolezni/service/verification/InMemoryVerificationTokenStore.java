@@ -0,0 +1,136 @@
+package com.bolezni.service.verification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Хранение кодов в памяти с истечением через timer wheel.
+ * Вставка и удаление O(1), один фоновый поток раз в тик обходит только текущую ячейку колеса.
+ * Коды не переживают рестарт и не видны другим инстансам, поэтому режим подходит для одного инстанса
+ * или как первый уровень {@link WriteBehindVerificationTokenStore}.
+ */
+@Slf4j
+public class InMemoryVerificationTokenStore implements VerificationTokenStore, DisposableBean {
+
+    private final ConcurrentHashMap<String, VerificationTokenRecord> byEmail = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> emailByToken = new ConcurrentHashMap<>();
+    private final Queue<String>[] wheel;
+    private final long tickMillis;
+    private final ScheduledExecutorService ticker;
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public InMemoryVerificationTokenStore(Duration tick, Duration maxTtl) {
+        this.tickMillis = tick.toMillis();
+        int slots = (int) (maxTtl.toMillis() / tickMillis) + 2;
+        this.wheel = new Queue[slots];
+        for (int i = 0; i < slots; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "verification-token-wheel");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void save(VerificationTokenRecord record) {
+        VerificationTokenRecord previous = byEmail.put(record.email(), record);
+        if (previous != null) {
+            emailByToken.remove(previous.token(), previous.email());
+        }
+        emailByToken.put(record.token(), record.email());
+        schedule(record);
+    }
+
+    @Override
+    public Optional<VerificationTokenRecord> findByToken(String token) {
+        String email = emailByToken.get(token);
+        if (email == null) {
+            return Optional.empty();
+        }
+        return findByEmail(email).filter(record -> record.token().equals(token));
+    }
+
+    @Override
+    public Optional<VerificationTokenRecord> findByCodeAndEmail(String verificationCode, String email) {
+        return findByEmail(email).filter(record -> record.verificationCode().equals(verificationCode));
+    }
+
+    @Override
+    public Optional<VerificationTokenRecord> findByEmail(String email) {
+        return Optional.ofNullable(byEmail.get(email));
+    }
+
+    @Override
+    public void removeByEmail(String email) {
+        VerificationTokenRecord removed = byEmail.remove(email);
+        if (removed != null) {
+            emailByToken.remove(removed.token(), email);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        ticker.shutdownNow();
+    }
+
+    private void schedule(VerificationTokenRecord record) {
+        long expiresAtMillis = record.expiresAt()
+                .atZone(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
+        long tick = Math.max(expiresAtMillis / tickMillis, System.currentTimeMillis() / tickMillis + 1);
+        wheel[(int) (tick % wheel.length)].add(record.email());
+    }
+
+    private void advance() {
+        try {
+            long nowTick = System.currentTimeMillis() / tickMillis;
+            while (currentTick <= nowTick) {
+                expireSlot(wheel[(int) (currentTick % wheel.length)]);
+                currentTick++;
+            }
+        } catch (RuntimeException e) {
+            log.error("Verification token expiration failed: {}", e.getMessage());
+        }
+    }
+
+    private void expireSlot(Queue<String> slot) {
+        LocalDateTime now = LocalDateTime.now();
+        int size = slot.size();
+        for (int i = 0; i < size; i++) {
+            String email = slot.poll();
+            if (email == null) {
+                return;
+            }
+            VerificationTokenRecord record = byEmail.get(email);
+            if (record == null) {
+                continue;
+            }
+            if (!record.expiresAt().isAfter(now)) {
+                if (byEmail.remove(email, record)) {
+                    emailByToken.remove(record.token(), email);
+                }
+            } else {
+                // Срок дальше одного оборота колеса или код был заменён более свежим
+                schedule(record);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.bolezni.service.verification;
+
+import com.bolezni.model.EmailVerificationToken;
+import com.bolezni.repository.EmailVerificationTokenRepository;
+import com.bolezni.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+@RequiredArgsConstructor
+public class JpaVerificationTokenStore implements VerificationTokenStore {
+
+    // Совпадает с allocationSize последовательности: пачка вставок берёт id одним обращением
+    private static final int JDBC_BATCH_SIZE = 50;
+
+    private final EmailVerificationTokenRepository emailTokenRepository;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public void save(VerificationTokenRecord record) {
+        emailTokenRepository.deleteByEmail(record.email());
+        emailTokenRepository.save(toEntity(record));
+    }
+
+    /**
+     * Применяет пачку операций в текущей транзакции: одно удаление по всем затронутым email
+     * и вставка новых кодов пачками JDBC
+     */
+    public void applyBatch(Collection<VerificationTokenRecord> saves, Collection<String> removals) {
+        Set<String> emails = new HashSet<>(removals);
+        saves.forEach(record -> emails.add(record.email()));
+        if (emails.isEmpty()) {
+            return;
+        }
+
+        emailTokenRepository.deleteAllByEmailIn(emails);
+        if (!saves.isEmpty()) {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(JDBC_BATCH_SIZE);
+            emailTokenRepository.saveAll(saves.stream().map(this::toEntity).toList());
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VerificationTokenRecord> findByToken(String token) {
+        return emailTokenRepository.findByToken(token).map(JpaVerificationTokenStore::toRecord);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VerificationTokenRecord> findByCodeAndEmail(String verificationCode, String email) {
+        return emailTokenRepository.findByVerificationCodeAndEmail(verificationCode, email)
+                .map(JpaVerificationTokenStore::toRecord);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<VerificationTokenRecord> findByEmail(String email) {
+        return emailTokenRepository.findByEmailAndIsUsedFalse(email).map(JpaVerificationTokenStore::toRecord);
+    }
+
+    @Override
+    @Transactional
+    public void removeByEmail(String email) {
+        emailTokenRepository.deleteByEmail(email);
+    }
+
+    private EmailVerificationToken toEntity(VerificationTokenRecord record) {
+        return EmailVerificationToken.builder()
+                .token(record.token())
+                .email(record.email())
+                .verificationCode(record.verificationCode())
+                .user(userRepository.getReferenceById(record.userId()))
+                .createdAt(LocalDateTime.now())
+                .expiresAt(record.expiresAt())
+                .isUsed(false)
+                .build();
+    }
+
+    private static VerificationTokenRecord toRecord(EmailVerificationToken entity) {
+        return new VerificationTokenRecord(
+                entity.getToken(),
+                entity.getEmail(),
+                entity.getVerificationCode(),
+                entity.getUser().getId(),
+                entity.getExpiresAt()
+        );
+    }
+}
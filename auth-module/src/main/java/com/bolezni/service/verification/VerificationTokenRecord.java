@@ -0,0 +1,19 @@
+package com.bolezni.service.verification;
+
+import java.time.LocalDateTime;
+
+/**
+ * Код подтверждения email вместе с ссылкой-токеном. Не зависит от способа хранения.
+ */
+public record VerificationTokenRecord(
+        String token,
+        String email,
+        String verificationCode,
+        String userId,
+        LocalDateTime expiresAt
+) {
+
+    public boolean isExpired() {
+        return LocalDateTime.now().isAfter(expiresAt);
+    }
+}
@@ -0,0 +1,23 @@
+package com.bolezni.service.verification;
+
+import java.util.Optional;
+
+/**
+ * Хранилище кодов подтверждения email. На один email действует не больше одного кода.
+ * Реализация выбирается свойством app.verification.store: jpa (по умолчанию), memory или write-behind.
+ */
+public interface VerificationTokenStore {
+
+    /**
+     * Сохраняет код, заменяя предыдущий код для того же email
+     */
+    void save(VerificationTokenRecord record);
+
+    Optional<VerificationTokenRecord> findByToken(String token);
+
+    Optional<VerificationTokenRecord> findByCodeAndEmail(String verificationCode, String email);
+
+    Optional<VerificationTokenRecord> findByEmail(String email);
+
+    void removeByEmail(String email);
+}
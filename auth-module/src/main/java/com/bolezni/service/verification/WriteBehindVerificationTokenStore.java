@@ -0,0 +1,159 @@
+package com.bolezni.service.verification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Коды пишутся в память сразу, а в БД - пачками в фоне.
+ * Операции по одному email схлопываются: если код подтвердили до сброса, в БД уходит только удаление.
+ * При промахе в памяти чтение идёт в БД, чтобы видеть коды других инстансов и коды, созданные до рестарта.
+ * Внутри транзакции запись применяется после её коммита: фоновый сброс не должен опередить вставку пользователя,
+ * а откаченная регистрация не должна оставить код в памяти.
+ */
+@Slf4j
+public class WriteBehindVerificationTokenStore implements VerificationTokenStore, DisposableBean {
+
+    // Отложенная операция: record == null означает удаление
+    private record PendingWrite(VerificationTokenRecord record) {
+    }
+
+    private final InMemoryVerificationTokenStore memory;
+    private final JpaVerificationTokenStore database;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<String, PendingWrite> pending = new ConcurrentHashMap<>();
+
+    public WriteBehindVerificationTokenStore(InMemoryVerificationTokenStore memory,
+                                             JpaVerificationTokenStore database,
+                                             PlatformTransactionManager transactionManager) {
+        this.memory = memory;
+        this.database = database;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void save(VerificationTokenRecord record) {
+        afterCommit(() -> {
+            memory.save(record);
+            pending.put(record.email(), new PendingWrite(record));
+        });
+    }
+
+    @Override
+    public Optional<VerificationTokenRecord> findByToken(String token) {
+        Optional<VerificationTokenRecord> cached = memory.findByToken(token);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        return database.findByToken(token).filter(record -> !isPendingRemoval(record.email()));
+    }
+
+    @Override
+    public Optional<VerificationTokenRecord> findByCodeAndEmail(String verificationCode, String email) {
+        Optional<VerificationTokenRecord> cached = memory.findByEmail(email);
+        if (cached.isPresent() || isPendingRemoval(email)) {
+            return cached.filter(record -> record.verificationCode().equals(verificationCode));
+        }
+        return database.findByCodeAndEmail(verificationCode, email);
+    }
+
+    @Override
+    public Optional<VerificationTokenRecord> findByEmail(String email) {
+        Optional<VerificationTokenRecord> cached = memory.findByEmail(email);
+        if (cached.isPresent() || isPendingRemoval(email)) {
+            return cached;
+        }
+        return database.findByEmail(email);
+    }
+
+    @Override
+    public void removeByEmail(String email) {
+        afterCommit(() -> {
+            memory.removeByEmail(email);
+            pending.put(email, new PendingWrite(null));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.verification.write-behind.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<String, PendingWrite>> batch = new ArrayList<>();
+        for (String email : pending.keySet()) {
+            PendingWrite write = pending.remove(email);
+            if (write != null) {
+                batch.add(Map.entry(email, write));
+            }
+        }
+
+        List<VerificationTokenRecord> saves = new ArrayList<>();
+        List<String> removals = new ArrayList<>();
+        for (Map.Entry<String, PendingWrite> entry : batch) {
+            if (entry.getValue().record() != null) {
+                saves.add(entry.getValue().record());
+            } else {
+                removals.add(entry.getKey());
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> database.applyBatch(saves, removals));
+        } catch (RuntimeException e) {
+            // Одна битая запись (например, пользователь уже удалён) не должна терять всю пачку
+            log.warn("Verification token batch flush failed, retrying one by one: {}", e.getMessage());
+            for (Map.Entry<String, PendingWrite> entry : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> apply(entry));
+                } catch (RuntimeException ex) {
+                    log.error("Failed to persist verification token for {}: {}", entry.getKey(), ex.getMessage());
+                }
+            }
+        }
+        log.debug("Flushed {} verification token writes", batch.size());
+    }
+
+    @Override
+    public void destroy() {
+        flush();
+        memory.destroy();
+    }
+
+    private void apply(Map.Entry<String, PendingWrite> entry) {
+        // Если за время сброса пришла более новая операция, она уйдёт следующим сбросом
+        if (entry.getValue().record() != null) {
+            database.save(entry.getValue().record());
+        } else {
+            database.removeByEmail(entry.getKey());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private boolean isPendingRemoval(String email) {
+        PendingWrite write = pending.get(email);
+        return write != null && write.record() == null;
+    }
+}
@@ -0,0 +1,106 @@
+package com.bolezni.security;
+
+import com.bolezni.model.UserEntity;
+import com.bolezni.repository.RefreshTokenRepository;
+import com.bolezni.repository.UserRepository;
+import com.bolezni.security.jwt.JwtService;
+import com.bolezni.security.jwt.TokenRevocationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Обмен refresh JWT старого формата на первый токен нового семейства
+ */
+class RefreshTokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final long ACCESS_EXPIRATION = Duration.ofMinutes(15).toMillis();
+    private static final long REFRESH_EXPIRATION = Duration.ofDays(7).toMillis();
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TokenRevocationService tokenRevocationService = mock(TokenRevocationService.class);
+
+    private RefreshTokenService refreshTokenService;
+    private UserEntity user;
+
+    @BeforeEach
+    void setUp() {
+        user = UserEntity.builder()
+                .id("user-1")
+                .firstName("John")
+                .lastName("Doe")
+                .username("johndoe")
+                .email("john.doe@example.com")
+                .password("password")
+                .verified(true)
+                .build();
+
+        refreshTokenService = new RefreshTokenService(
+                mock(RefreshTokenRepository.class),
+                userRepository,
+                mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(),
+                jwtService(ACCESS_EXPIRATION),
+                tokenRevocationService);
+        ReflectionTestUtils.setField(refreshTokenService, "refreshExpiration", REFRESH_EXPIRATION);
+        ReflectionTestUtils.setField(refreshTokenService, "reuseGraceSeconds", 10L);
+        ReflectionTestUtils.setField(refreshTokenService, "acceptLegacyJwt", true);
+        refreshTokenService.init();
+    }
+
+    @Test
+    void legacyRefreshJwtIsExchangedByUsername() {
+        // Старые refresh JWT подписывались тем же ключом, но со сроком refresh токена
+        String legacyToken = jwtService(REFRESH_EXPIRATION).generateToken(UserPrincipal.from(user));
+        when(userRepository.findByUsernameWithRoles("johndoe")).thenReturn(Optional.of(user));
+        when(tokenRevocationService.revokeOnce(anyString(), any(Instant.class))).thenReturn(true);
+
+        RefreshTokenService.Rotation rotation = refreshTokenService.rotate(legacyToken);
+
+        assertThat(rotation.principal().id()).isEqualTo("user-1");
+        assertThat(rotation.principal().getUsername()).isEqualTo("johndoe");
+        assertThat(rotation.refreshToken()).doesNotContain(".");
+        verify(userRepository, never()).findByEmail(anyString());
+    }
+
+    @Test
+    void accessJwtIsNotExchanged() {
+        String accessToken = jwtService(ACCESS_EXPIRATION).generateToken(UserPrincipal.from(user));
+
+        assertThatThrownBy(() -> refreshTokenService.rotate(accessToken))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Refresh token is invalid or expired");
+        verify(tokenRevocationService, never()).revokeOnce(anyString(), any(Instant.class));
+    }
+
+    private static JwtService jwtService(long expiration) {
+        JwtService jwtService = new JwtService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "signingKeys", "");
+        ReflectionTestUtils.setField(jwtService, "activeKid", "");
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", expiration);
+        ReflectionTestUtils.setField(jwtService, "refreshExpiration", REFRESH_EXPIRATION);
+        ReflectionTestUtils.setField(jwtService, "acceptLegacyJwt", true);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(jwtService, "statelessPrincipalEnabled", false);
+        ReflectionTestUtils.invokeMethod(jwtService, "init");
+        return jwtService;
+    }
+}
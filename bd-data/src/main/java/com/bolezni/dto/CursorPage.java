@@ -0,0 +1,41 @@
+package com.bolezni.dto;
+
+import com.bolezni.repository.KeysetCursor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница курсорной выдачи. Общее число записей не считается, hasNext определяется по лишней строке выборки.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        String nextCursor,
+        boolean hasNext
+) {
+
+    public static final int MAX_SIZE = 100;
+
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+
+    /**
+     * @param rows     выборка размером до size + 1
+     * @param cursorOf позиция строки в сортировке
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size, Function<E, KeysetCursor> cursorOf, Function<E, T> mapper) {
+        return ofBatch(rows, size, cursorOf, page -> page.stream().map(mapper).toList());
+    }
+
+    /**
+     * То же, но страница преобразуется целиком, например чтобы догрузить связанные данные одним запросом
+     */
+    public static <E, T> CursorPage<T> ofBatch(List<E> rows, int size, Function<E, KeysetCursor> cursorOf,
+                                               Function<List<E>, List<T>> pageMapper) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(page.get(page.size() - 1)).encode() : null;
+        return new CursorPage<>(pageMapper.apply(page), nextCursor, hasNext);
+    }
+}
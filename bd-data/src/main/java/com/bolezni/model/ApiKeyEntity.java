@@ -0,0 +1,59 @@
+package com.bolezni.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * API-ключ для межсервисных вызовов. Ключ выдаётся один раз, в БД лежат только открытый префикс для поиска
+ * и HMAC от ключа целиком. Ключ действует от имени владельца, но только с ролями из scopes.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "api_key",
+        indexes = {
+                @Index(name = "idx_api_key_prefix", columnList = "prefix", unique = true),
+                @Index(name = "idx_api_key_user", columnList = "user_id"),
+                @Index(name = "idx_api_key_expires_at", columnList = "expires_at")
+        })
+@Entity
+public class ApiKeyEntity extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Column(nullable = false, length = 16)
+    private String prefix;
+
+    @Column(name = "secret_digest", nullable = false, length = 64)
+    private String secretDigest;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private UserEntity user;
+
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "api_key_scopes", joinColumns = @JoinColumn(name = "api_key_id"))
+    @Column(name = "scope")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private Set<Roles> scopes = new HashSet<>();
+
+    // null - бессрочный ключ
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+}
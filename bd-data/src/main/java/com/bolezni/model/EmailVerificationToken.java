@@ -6,7 +6,11 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "email_verification_tokens")
+@Table(name = "email_verification_tokens",
+        indexes = {
+                @Index(name = "idx_email_verification_expires_at", columnList = "expires_at"),
+                @Index(name = "idx_email_verification_code_email", columnList = "verification_code, email")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -24,13 +28,13 @@ public class EmailVerificationToken extends BaseEntity{
     @Column(nullable = false)
     private String email;
 
-    @Column(nullable = false)
+    @Column(name = "verification_code", nullable = false)
     private String verificationCode;
 
-    @Column(nullable = false)
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
-    @Column(nullable = false)
+    @Column(name = "expires_at", nullable = false)
     private LocalDateTime expiresAt;
 
     @Builder.Default
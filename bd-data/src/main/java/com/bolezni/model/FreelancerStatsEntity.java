@@ -0,0 +1,46 @@
+package com.bolezni.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+/**
+ * Счётчики проектов фрилансера по статусам. Меняются атомарными UPDATE в транзакции, меняющей статус проекта,
+ * поэтому проверка лимита и статистика профиля читают одну строку без подсчёта по projects.
+ * Строка создаётся при первом переходе проекта фрилансера в IN_PROGRESS со значениями, посчитанными по projects,
+ * и периодически сверяется с ними.
+ * PENDING не считается: у проекта в этом статусе нет фрилансера.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "freelancer_stats")
+@Entity
+public class FreelancerStatsEntity {
+
+    @Id
+    @Column(name = "user_id")
+    private String userId;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @MapsId
+    @JoinColumn(name = "user_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private UserEntity user;
+
+    @Column(name = "in_progress_count", nullable = false)
+    @ColumnDefault("0")
+    private int inProgressCount;
+
+    @Column(name = "completed_count", nullable = false)
+    @ColumnDefault("0")
+    private int completedCount;
+
+    @Column(name = "cancelled_count", nullable = false)
+    @ColumnDefault("0")
+    private int cancelledCount;
+}
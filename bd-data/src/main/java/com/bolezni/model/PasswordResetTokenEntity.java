@@ -11,7 +11,11 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
-@Table(name = "password_reset_token")
+@Table(name = "password_reset_token",
+        indexes = {
+                @Index(name = "idx_password_reset_expire_date", columnList = "expire_date"),
+                @Index(name = "idx_password_reset_token", columnList = "token")
+        })
 @Entity
 public class PasswordResetTokenEntity extends BaseEntity {
 
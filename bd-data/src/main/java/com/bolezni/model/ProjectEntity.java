@@ -3,6 +3,7 @@ package com.bolezni.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -15,7 +16,14 @@ import java.util.Set;
 @NoArgsConstructor
 @ToString
 @Builder
-@Table(name = "projects")
+@Table(name = "projects",
+        indexes = {
+                @Index(name = "idx_projects_status", columnList = "status"),
+                @Index(name = "idx_projects_price", columnList = "price"),
+                @Index(name = "idx_projects_deadline", columnList = "deadline"),
+                @Index(name = "idx_projects_created_at_id", columnList = "created_at, id"),
+                @Index(name = "idx_projects_author_created_at_id", columnList = "author_id, created_at, id")
+        })
 @Entity
 public class ProjectEntity extends BaseEntity {
     @Id
@@ -55,7 +63,8 @@ public class ProjectEntity extends BaseEntity {
     @JoinTable(
             name = "project_categories",
             joinColumns = @JoinColumn(name = "project_id"),
-            inverseJoinColumns = @JoinColumn(name = "category_id")
+            inverseJoinColumns = @JoinColumn(name = "category_id"),
+            indexes = @Index(name = "idx_project_categories_category", columnList = "category_id")
     )
     @Builder.Default
     private Set<CategoriesEntity> categories = new HashSet<>();
@@ -64,4 +73,10 @@ public class ProjectEntity extends BaseEntity {
     @Column(nullable = false)
     @Builder.Default
     private ProjectStatus status = ProjectStatus.PENDING;
+
+    // Оптимистическая блокировка и ETag проекта
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    private Long version;
 }
@@ -0,0 +1,52 @@
+package com.bolezni.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+
+/**
+ * Refresh токен. Хранится только SHA-256 хэш; все токены, полученные ротацией от одного логина, образуют семейство.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "refresh_token",
+        indexes = {
+                @Index(name = "idx_refresh_token_hash", columnList = "token_hash", unique = true),
+                @Index(name = "idx_refresh_token_family", columnList = "family_id"),
+                @Index(name = "idx_refresh_token_user", columnList = "user_id"),
+                @Index(name = "idx_refresh_token_expires_at", columnList = "expires_at")
+        })
+@Entity
+public class RefreshTokenEntity extends BaseEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE)
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private UserEntity user;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    // Момент ротации; повторное предъявление после него означает утечку токена
+    @Column(name = "used_at")
+    private Instant usedAt;
+
+    @Column(name = "is_revoked", nullable = false)
+    @ColumnDefault("false")
+    @Builder.Default
+    private boolean revoked = false;
+}
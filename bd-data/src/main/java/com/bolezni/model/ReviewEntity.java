@@ -8,7 +8,11 @@ import lombok.*;
 @Getter
 @Setter
 @Builder
-@Table(name = "review")
+@Table(name = "review",
+        indexes = {
+                @Index(name = "idx_review_reviewer_created_at_id", columnList = "reviewer_id, created_at, id"),
+                @Index(name = "idx_review_reviewed_created_at_id", columnList = "reviewed_user_id, created_at, id")
+        })
 @Entity
 public class ReviewEntity extends BaseEntity{
 
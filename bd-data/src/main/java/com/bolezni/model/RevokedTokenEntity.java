@@ -0,0 +1,35 @@
+package com.bolezni.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Отозванный JWT. Ключ - jti конкретного токена или "uid:{id}" для отзыва всех токенов пользователя,
+ * выпущенных до revokedAt. Запись нужна только до истечения последнего затронутого токена.
+ * Для отзыва по пользователю securityVersion - версия безопасности после отзыва: отозваны токены с меньшей версией.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "revoked_token",
+        indexes = @Index(name = "idx_revoked_token_expires_at", columnList = "expires_at"))
+@Entity
+public class RevokedTokenEntity {
+
+    @Id
+    @Column(name = "token_key", length = 64)
+    private String tokenKey;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "security_version")
+    private Long securityVersion;
+}
@@ -2,6 +2,7 @@ package com.bolezni.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -14,7 +15,10 @@ import java.util.Set;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "_user")
+@Table(name = "_user",
+        indexes = {
+                @Index(name = "idx_user_provider_provider_id", columnList = "provider, provider_id", unique = true)
+        })
 @Entity
 public class UserEntity extends BaseEntity {
 
@@ -47,6 +51,24 @@ public class UserEntity extends BaseEntity {
     @Builder.Default
     private boolean verified = false;
 
+    // Блокировка администратором: вход запрещён, выпущенные токены отзываются
+    @Column(name = "is_locked", nullable = false)
+    @ColumnDefault("false")
+    @Builder.Default
+    private boolean locked = false;
+
+    // Увеличивается при смене пароля и других событиях, после которых старые токены недействительны
+    @Column(name = "security_version", nullable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private long securityVersion = 0L;
+
+    // Оптимистическая блокировка и ETag профиля; массовые UPDATE его не меняют
+    @Version
+    @Column(name = "version", nullable = false)
+    @ColumnDefault("0")
+    private Long version;
+
     @ElementCollection(fetch = FetchType.EAGER, targetClass = Roles.class)
     @Enumerated(EnumType.STRING)
     @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
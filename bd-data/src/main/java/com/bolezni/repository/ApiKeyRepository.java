@@ -0,0 +1,34 @@
+package com.bolezni.repository;
+
+import com.bolezni.model.ApiKeyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ApiKeyRepository extends JpaRepository<ApiKeyEntity, Long> {
+
+    @Query("SELECT k FROM ApiKeyEntity k " +
+            "JOIN FETCH k.user " +
+            "LEFT JOIN FETCH k.scopes " +
+            "WHERE k.prefix = :prefix")
+    Optional<ApiKeyEntity> findByPrefixWithUser(@Param("prefix") String prefix);
+
+    @Query("SELECT DISTINCT k FROM ApiKeyEntity k " +
+            "LEFT JOIN FETCH k.scopes " +
+            "WHERE k.user.id = :userId " +
+            "ORDER BY k.id")
+    List<ApiKeyEntity> findAllByUserIdWithScopes(@Param("userId") String userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM api_key WHERE id IN " +
+            "(SELECT id FROM api_key WHERE expires_at < :cutoff LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") Instant cutoff, @Param("batchSize") int batchSize);
+}
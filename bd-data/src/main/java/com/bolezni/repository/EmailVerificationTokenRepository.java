@@ -2,8 +2,13 @@ package com.bolezni.repository;
 
 import com.bolezni.model.EmailVerificationToken;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 
 @Repository
@@ -15,5 +20,15 @@ public interface EmailVerificationTokenRepository extends JpaRepository<EmailVer
 
     void deleteByEmail(String email);
 
+    @Modifying
+    @Query("DELETE FROM EmailVerificationToken t WHERE t.email IN :emails")
+    int deleteAllByEmailIn(@Param("emails") Collection<String> emails);
+
     Optional<EmailVerificationToken> findByEmailAndIsUsedFalse(String email);
+
+    @Modifying
+    @Query(value = "DELETE FROM email_verification_tokens WHERE id IN " +
+            "(SELECT id FROM email_verification_tokens WHERE expires_at < :cutoff LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
 }
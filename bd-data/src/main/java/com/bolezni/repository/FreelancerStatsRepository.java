@@ -0,0 +1,80 @@
+package com.bolezni.repository;
+
+import com.bolezni.model.FreelancerStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface FreelancerStatsRepository extends JpaRepository<FreelancerStatsEntity, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO freelancer_stats (user_id, in_progress_count, completed_count, cancelled_count) " +
+            "SELECT :userId, " +
+            "count(*) FILTER (WHERE status = 'IN_PROGRESS'), " +
+            "count(*) FILTER (WHERE status = 'COMPLETED'), " +
+            "count(*) FILTER (WHERE status = 'CANCEL') " +
+            "FROM projects WHERE freelancer_id = :userId " +
+            "ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("userId") String userId);
+
+    /**
+     * @return 0, если фрилансер уже достиг лимита
+     */
+    @Modifying
+    @Query(value = "UPDATE freelancer_stats SET in_progress_count = in_progress_count + 1 " +
+            "WHERE user_id = :userId AND in_progress_count < :limit",
+            nativeQuery = true)
+    int incrementInProgressIfBelow(@Param("userId") String userId, @Param("limit") long limit);
+
+    /**
+     * Переносит проект из счётчика статуса from в счётчик статуса to. null - проекта нет (создан или удалён).
+     */
+    @Modifying
+    @Query(value = "UPDATE freelancer_stats SET " +
+            "in_progress_count = GREATEST(in_progress_count " +
+            "+ CASE WHEN :to = 'IN_PROGRESS' THEN 1 ELSE 0 END - CASE WHEN :from = 'IN_PROGRESS' THEN 1 ELSE 0 END, 0), " +
+            "completed_count = GREATEST(completed_count " +
+            "+ CASE WHEN :to = 'COMPLETED' THEN 1 ELSE 0 END - CASE WHEN :from = 'COMPLETED' THEN 1 ELSE 0 END, 0), " +
+            "cancelled_count = GREATEST(cancelled_count " +
+            "+ CASE WHEN :to = 'CANCEL' THEN 1 ELSE 0 END - CASE WHEN :from = 'CANCEL' THEN 1 ELSE 0 END, 0) " +
+            "WHERE user_id = :userId",
+            nativeQuery = true)
+    int moveBetweenStatuses(@Param("userId") String userId,
+                            @Param("from") String from,
+                            @Param("to") String to);
+
+    @Query(value = "SELECT user_id FROM freelancer_stats ORDER BY user_id", nativeQuery = true)
+    List<String> findAllUserIds();
+
+    /**
+     * Блокирует строку счётчиков до конца транзакции: назначения и смены статуса этого фрилансера ждут сверку
+     */
+    @Query(value = "SELECT user_id FROM freelancer_stats WHERE user_id = :userId FOR UPDATE", nativeQuery = true)
+    Optional<String> lockByUserId(@Param("userId") String userId);
+
+    /**
+     * Пересчитывает строку фрилансера по projects. Вызывается после lockByUserId в той же транзакции.
+     *
+     * @return 1, если значения были исправлены
+     */
+    @Modifying
+    @Query(value = "UPDATE freelancer_stats s SET " +
+            "in_progress_count = c.in_progress, completed_count = c.completed, cancelled_count = c.cancelled " +
+            "FROM (SELECT " +
+            "count(*) FILTER (WHERE p.status = 'IN_PROGRESS') AS in_progress, " +
+            "count(*) FILTER (WHERE p.status = 'COMPLETED') AS completed, " +
+            "count(*) FILTER (WHERE p.status = 'CANCEL') AS cancelled " +
+            "FROM projects p WHERE p.freelancer_id = :userId) c " +
+            "WHERE s.user_id = :userId " +
+            "AND (s.in_progress_count, s.completed_count, s.cancelled_count) " +
+            "IS DISTINCT FROM (c.in_progress, c.completed, c.cancelled)",
+            nativeQuery = true)
+    int recount(@Param("userId") String userId);
+}
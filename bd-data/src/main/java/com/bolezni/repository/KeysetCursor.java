@@ -0,0 +1,52 @@
+package com.bolezni.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+
+/**
+ * Позиция в выдаче, отсортированной по (createdAt DESC, id DESC).
+ * Клиенту отдаётся непрозрачной строкой; следующая страница читается условием (created_at, id) < (?, ?),
+ * которое идёт по составному индексу, поэтому глубина страницы не влияет на стоимость запроса.
+ */
+public record KeysetCursor(LocalDateTime createdAt, Long id) {
+
+    // Позиция до первой записи; дата заведомо позже любой created_at и при этом допустима для timestamp в PostgreSQL
+    private static final KeysetCursor START = new KeysetCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+
+    public static KeysetCursor start() {
+        return START;
+    }
+
+    /**
+     * @param token значение, полученное из {@link #encode()}; null или пустая строка - первая страница
+     */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            long micros = Long.parseLong(decoded.substring(0, separator));
+            long id = Long.parseLong(decoded.substring(separator + 1));
+            LocalDateTime createdAt = LocalDateTime.ofEpochSecond(
+                    Math.floorDiv(micros, 1_000_000L),
+                    (int) Math.floorMod(micros, 1_000_000L) * 1_000,
+                    ZoneOffset.UTC);
+            return new KeysetCursor(createdAt, id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        // PostgreSQL хранит timestamp с точностью до микросекунд
+        LocalDateTime truncated = createdAt.truncatedTo(ChronoUnit.MICROS);
+        long micros = truncated.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + truncated.getNano() / 1_000;
+        String raw = micros + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
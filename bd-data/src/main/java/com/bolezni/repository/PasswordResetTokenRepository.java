@@ -2,12 +2,22 @@ package com.bolezni.repository;
 
 import com.bolezni.model.PasswordResetTokenEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
 public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetTokenEntity, Long> {
 
     Optional<PasswordResetTokenEntity> findByToken(String token);
+
+    @Modifying
+    @Query(value = "DELETE FROM password_reset_token WHERE id IN " +
+            "(SELECT id FROM password_reset_token WHERE expire_date < :cutoff LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") LocalDateTime cutoff, @Param("batchSize") int batchSize);
 }
@@ -2,14 +2,27 @@ package com.bolezni.repository;
 
 import com.bolezni.model.ProjectEntity;
 import com.bolezni.model.ProjectStatus;
+import com.bolezni.repository.projection.ProjectCategoryRow;
+import com.bolezni.repository.projection.ProjectFacetRow;
+import com.bolezni.repository.projection.ProjectRow;
 import lombok.NonNull;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
-public interface ProjectRepository extends JpaRepository<ProjectEntity, Long> {
+public interface ProjectRepository extends JpaRepository<ProjectEntity, Long>, JpaSpecificationExecutor<ProjectEntity> {
 
     boolean existsByAuthorId(String author_id);
 
@@ -18,5 +31,73 @@ public interface ProjectRepository extends JpaRepository<ProjectEntity, Long> {
 
     Page<ProjectEntity> findAllByAuthorId(Pageable pageable, String author_id);
 
+    @Query(value = "SELECT new com.bolezni.repository.projection.ProjectRow(p.id, p.title, p.description, p.price, p.author.id, p.createdAt) FROM ProjectEntity p",
+            countQuery = "SELECT count(p) FROM ProjectEntity p")
+    Page<ProjectRow> findAllRows(Pageable pageable);
+
+    @Query(value = "SELECT new com.bolezni.repository.projection.ProjectRow(p.id, p.title, p.description, p.price, p.author.id, p.createdAt) FROM ProjectEntity p " +
+            "WHERE p.author.id = :authorId",
+            countQuery = "SELECT count(p) FROM ProjectEntity p WHERE p.author.id = :authorId")
+    Page<ProjectRow> findRowsByAuthorId(@Param("authorId") String authorId, Pageable pageable);
+
+    @Query("SELECT p.version FROM ProjectEntity p WHERE p.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Назначение одним условным UPDATE: из одновременных заявок на проект строку изменит только первая
+     *
+     * @return 0, если проект не найден, уже занят, не в статусе PENDING или фрилансер - его автор
+     */
+    @Modifying
+    @Query(value = "UPDATE projects SET freelancer_id = :freelancerId, status = 'IN_PROGRESS', taken_at = :now, " +
+            "update_at = :now, version = version + 1 " +
+            "WHERE id = :id AND freelancer_id IS NULL AND status = 'PENDING' AND author_id <> :freelancerId",
+            nativeQuery = true)
+    int assignIfPending(@Param("id") Long id,
+                        @Param("freelancerId") String freelancerId,
+                        @Param("now") LocalDateTime now);
+
     long countByFreelancerIdAndStatus(@NonNull String freelancer_id, @NonNull ProjectStatus status);
+
+    @Query("SELECT new com.bolezni.repository.projection.ProjectRow(p.id, p.title, p.description, p.price, p.author.id, p.createdAt) FROM ProjectEntity p " +
+            "WHERE (p.createdAt, p.id) < (:createdAt, :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProjectRow> findPageBefore(@Param("createdAt") LocalDateTime createdAt,
+                                    @Param("id") Long id,
+                                    Limit limit);
+
+    @Query("SELECT new com.bolezni.repository.projection.ProjectRow(p.id, p.title, p.description, p.price, p.author.id, p.createdAt) FROM ProjectEntity p " +
+            "WHERE p.author.id = :authorId AND (p.createdAt, p.id) < (:createdAt, :id) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProjectRow> findPageByAuthorIdBefore(@Param("authorId") String authorId,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") Long id,
+                                              Limit limit);
+
+    @Query("SELECT DISTINCT p FROM ProjectEntity p " +
+            "LEFT JOIN FETCH p.categories " +
+            "WHERE p.id IN :ids")
+    List<ProjectEntity> findAllWithCategoriesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.bolezni.repository.projection.ProjectCategoryRow(p.id, c.name) " +
+            "FROM ProjectEntity p " +
+            "JOIN p.categories c " +
+            "WHERE p.id IN :ids")
+    List<ProjectCategoryRow> findCategoryRowsByProjectIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.bolezni.repository.projection.ProjectFacetRow(p.id, p.status, p.price, p.deadline, c.name) " +
+            "FROM ProjectEntity p " +
+            "LEFT JOIN p.categories c " +
+            "WHERE p.id IN :ids")
+    List<ProjectFacetRow> findFacetRowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p.id FROM ProjectEntity p WHERE p.id > :afterId ORDER BY p.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT p.id FROM ProjectEntity p " +
+            "WHERE p.id > :afterId AND (p.updatedAt >= :since OR p.createdAt >= :since) " +
+            "ORDER BY p.id")
+    List<Long> findIdsChangedSince(@Param("since") LocalDateTime since,
+                                   @Param("afterId") Long afterId,
+                                   Pageable pageable);
 }
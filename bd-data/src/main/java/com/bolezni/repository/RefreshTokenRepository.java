@@ -0,0 +1,43 @@
+package com.bolezni.repository;
+
+import com.bolezni.model.RefreshTokenEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshTokenEntity, Long> {
+
+    @Query("SELECT t FROM RefreshTokenEntity t " +
+            "JOIN FETCH t.user u " +
+            "LEFT JOIN FETCH u.roles " +
+            "WHERE t.tokenHash = :tokenHash")
+    Optional<RefreshTokenEntity> findByTokenHashWithUser(@Param("tokenHash") String tokenHash);
+
+    @Query("SELECT t.familyId FROM RefreshTokenEntity t WHERE t.tokenHash = :tokenHash AND t.user.id = :userId")
+    Optional<String> findFamilyIdByTokenHashAndUserId(@Param("tokenHash") String tokenHash, @Param("userId") String userId);
+
+    @Modifying
+    @Query("UPDATE RefreshTokenEntity t SET t.usedAt = :now " +
+            "WHERE t.id = :id AND t.usedAt IS NULL AND t.revoked = false")
+    int markUsed(@Param("id") Long id, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE RefreshTokenEntity t SET t.revoked = true WHERE t.familyId = :familyId AND t.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    @Modifying
+    @Query("UPDATE RefreshTokenEntity t SET t.revoked = true WHERE t.user.id = :userId AND t.revoked = false")
+    int revokeAllByUserId(@Param("userId") String userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM refresh_token WHERE id IN " +
+            "(SELECT id FROM refresh_token WHERE expires_at < :cutoff LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") Instant cutoff, @Param("batchSize") int batchSize);
+}
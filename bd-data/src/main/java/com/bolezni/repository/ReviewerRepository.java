@@ -1,11 +1,18 @@
 package com.bolezni.repository;
 
 import com.bolezni.model.ReviewEntity;
+import com.bolezni.repository.projection.ReviewRow;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface ReviewerRepository extends JpaRepository<ReviewEntity, Long> {
     boolean existsByReviewedUserIdAndReviewerId(String reviewedUser_id, String reviewer_id);
@@ -13,4 +20,30 @@ public interface ReviewerRepository extends JpaRepository<ReviewEntity, Long> {
     Page<ReviewEntity> findAllByReviewerId(Pageable pageable, String reviewer_id);
 
     Page<ReviewEntity> findAllByReviewedUserId(Pageable pageable, String reviewedUser_id);
+
+    @Query(value = "SELECT new com.bolezni.repository.projection.ReviewRow(r.id, r.reviewer.id, r.reviewedUser.id, r.rating, r.comment, r.status, r.createdAt) FROM ReviewEntity r " +
+            "WHERE r.reviewer.id = :reviewerId",
+            countQuery = "SELECT count(r) FROM ReviewEntity r WHERE r.reviewer.id = :reviewerId")
+    Page<ReviewRow> findRowsByReviewerId(@Param("reviewerId") String reviewerId, Pageable pageable);
+
+    @Query(value = "SELECT new com.bolezni.repository.projection.ReviewRow(r.id, r.reviewer.id, r.reviewedUser.id, r.rating, r.comment, r.status, r.createdAt) FROM ReviewEntity r " +
+            "WHERE r.reviewedUser.id = :reviewedUserId",
+            countQuery = "SELECT count(r) FROM ReviewEntity r WHERE r.reviewedUser.id = :reviewedUserId")
+    Page<ReviewRow> findRowsByReviewedUserId(@Param("reviewedUserId") String reviewedUserId, Pageable pageable);
+
+    @Query("SELECT new com.bolezni.repository.projection.ReviewRow(r.id, r.reviewer.id, r.reviewedUser.id, r.rating, r.comment, r.status, r.createdAt) FROM ReviewEntity r " +
+            "WHERE r.reviewer.id = :reviewerId AND (r.createdAt, r.id) < (:createdAt, :id) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewRow> findPageByReviewerIdBefore(@Param("reviewerId") String reviewerId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Limit limit);
+
+    @Query("SELECT new com.bolezni.repository.projection.ReviewRow(r.id, r.reviewer.id, r.reviewedUser.id, r.rating, r.comment, r.status, r.createdAt) FROM ReviewEntity r " +
+            "WHERE r.reviewedUser.id = :reviewedUserId AND (r.createdAt, r.id) < (:createdAt, :id) " +
+            "ORDER BY r.createdAt DESC, r.id DESC")
+    List<ReviewRow> findPageByReviewedUserIdBefore(@Param("reviewedUserId") String reviewedUserId,
+                                                   @Param("createdAt") LocalDateTime createdAt,
+                                                   @Param("id") Long id,
+                                                   Limit limit);
 }
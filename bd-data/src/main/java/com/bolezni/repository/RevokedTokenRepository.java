@@ -0,0 +1,39 @@
+package com.bolezni.repository;
+
+import com.bolezni.model.RevokedTokenEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedTokenEntity, String> {
+
+    @Query("SELECT r.tokenKey FROM RevokedTokenEntity r WHERE r.expiresAt > :now")
+    List<String> findActiveKeys(@Param("now") Instant now);
+
+    @Query("SELECT r FROM RevokedTokenEntity r WHERE r.tokenKey = :tokenKey AND r.expiresAt > :now")
+    Optional<RevokedTokenEntity> findActive(@Param("tokenKey") String tokenKey, @Param("now") Instant now);
+
+    /**
+     * @return 0, если ключ уже записан
+     */
+    @Modifying
+    @Query(value = "INSERT INTO revoked_token (token_key, revoked_at, expires_at) " +
+            "VALUES (:tokenKey, :revokedAt, :expiresAt) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("tokenKey") String tokenKey,
+                       @Param("revokedAt") Instant revokedAt,
+                       @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Query(value = "DELETE FROM revoked_token WHERE token_key IN " +
+            "(SELECT token_key FROM revoked_token WHERE expires_at <= :cutoff LIMIT :batchSize)",
+            nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") Instant cutoff, @Param("batchSize") int batchSize);
+}
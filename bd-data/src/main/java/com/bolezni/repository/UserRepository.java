@@ -2,6 +2,7 @@ package com.bolezni.repository;
 
 import com.bolezni.model.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -17,7 +18,30 @@ public interface UserRepository extends JpaRepository<UserEntity, String> {
             "WHERE u.username = :username")
     Optional<UserEntity> findByUsernameWithRoles(@Param("username") String username);
 
+    @Query("SELECT u FROM UserEntity u " +
+            "LEFT JOIN FETCH u.roles " +
+            "WHERE u.id = :id")
+    Optional<UserEntity> findByIdWithRoles(@Param("id") String id);
+
+    @Query("SELECT u.id FROM UserEntity u WHERE u.provider = :provider AND u.providerId = :providerId")
+    Optional<String> findIdByProviderAndProviderId(@Param("provider") String provider,
+                                                   @Param("providerId") String providerId);
+
     boolean existsByUsernameOrEmail(String username, String email);
 
     Optional<UserEntity> findByEmail(String email);
+
+    @Query("SELECT u.securityVersion FROM UserEntity u WHERE u.id = :id")
+    Optional<Long> findSecurityVersionById(@Param("id") String id);
+
+    @Query("SELECT u.version FROM UserEntity u WHERE u.id = :id")
+    Optional<Long> findVersionById(@Param("id") String id);
+
+    @Modifying
+    @Query("UPDATE UserEntity u SET u.password = :password WHERE u.username = :username")
+    int updatePasswordByUsername(@Param("username") String username, @Param("password") String password);
+
+    @Modifying
+    @Query("UPDATE UserEntity u SET u.securityVersion = u.securityVersion + 1 WHERE u.id = :id")
+    int incrementSecurityVersion(@Param("id") String id);
 }
@@ -0,0 +1,7 @@
+package com.bolezni.repository.projection;
+
+public record ProjectCategoryRow(
+        Long projectId,
+        String name
+) {
+}
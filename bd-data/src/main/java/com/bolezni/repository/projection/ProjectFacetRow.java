@@ -0,0 +1,18 @@
+package com.bolezni.repository.projection;
+
+import com.bolezni.model.ProjectStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Поля проекта, по которым строятся фасеты. Строка на каждую категорию проекта, category = null без категорий.
+ */
+public record ProjectFacetRow(
+        Long id,
+        ProjectStatus status,
+        BigDecimal price,
+        LocalDateTime deadline,
+        String category
+) {
+}
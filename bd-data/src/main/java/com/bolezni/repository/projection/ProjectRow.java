@@ -0,0 +1,17 @@
+package com.bolezni.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Поля проекта для списков. authorId читается из внешнего ключа, без загрузки автора.
+ */
+public record ProjectRow(
+        Long id,
+        String title,
+        String description,
+        BigDecimal price,
+        String authorId,
+        LocalDateTime createdAt
+) {
+}
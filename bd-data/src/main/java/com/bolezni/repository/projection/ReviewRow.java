@@ -0,0 +1,16 @@
+package com.bolezni.repository.projection;
+
+import com.bolezni.model.ReviewStatus;
+
+import java.time.LocalDateTime;
+
+public record ReviewRow(
+        Long id,
+        String reviewerId,
+        String reviewedUserId,
+        Integer rating,
+        String comment,
+        ReviewStatus status,
+        LocalDateTime createdAt
+) {
+}
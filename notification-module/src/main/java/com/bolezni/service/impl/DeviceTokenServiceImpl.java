@@ -5,6 +5,7 @@ import com.bolezni.dto.TokenRegistrationRequest;
 import com.bolezni.model.UserDeviceTokenEntity;
 import com.bolezni.model.UserEntity;
 import com.bolezni.repository.UserDeviceTokenRepository;
+import com.bolezni.repository.UserRepository;
 import com.bolezni.service.DeviceTokenService;
 import com.bolezni.utils.UserUtils;
 import lombok.RequiredArgsConstructor;
@@ -13,7 +14,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -21,6 +21,7 @@ import java.util.stream.Collectors;
 public class DeviceTokenServiceImpl implements DeviceTokenService {
 
     private final UserDeviceTokenRepository deviceTokenRepository;
+    private final UserRepository userRepository;
 
     @Override
     @Transactional
@@ -30,7 +31,7 @@ public class DeviceTokenServiceImpl implements DeviceTokenService {
             throw new IllegalArgumentException("registrationRequest cannot be null");
         }
 
-        UserEntity currentUser = UserUtils.getCurrentUser()
+        UserEntity currentUser = UserUtils.getCurrentUserReference(userRepository)
                 .orElseThrow(() -> new RuntimeException("User not logged in"));
 
         UserDeviceTokenEntity deviceTokenEntity = deviceTokenRepository.findByDeviceToken(registrationRequest.token())
@@ -50,10 +51,10 @@ public class DeviceTokenServiceImpl implements DeviceTokenService {
     @Override
     @Transactional
     public void deleteDeviceToken(String userId, String deviceToken) {
-        UserEntity currentUser = UserUtils.getCurrentUser()
+        String currentUserId = UserUtils.getCurrentUserId()
                 .orElseThrow(() -> new RuntimeException("User not logged in"));
 
-        UserUtils.isCurrentUser(userId, currentUser.getId());
+        UserUtils.isCurrentUser(userId, currentUserId);
 
         deviceTokenRepository.findByDeviceToken(deviceToken)
                 .ifPresent(deviceTokenRepository::delete);
@@ -62,24 +63,22 @@ public class DeviceTokenServiceImpl implements DeviceTokenService {
     @Override
     @Transactional
     public void deleteAllDeviceTokens(String userId) {
-        UserEntity currentUser = UserUtils.getCurrentUser()
+        String currentUserId = UserUtils.getCurrentUserId()
                 .orElseThrow(() -> new RuntimeException("User not logged in"));
 
-        UserUtils.isCurrentUser(userId, currentUser.getId());
+        UserUtils.isCurrentUser(userId, currentUserId);
 
-        List<UserDeviceTokenEntity> userTokens = currentUser.getDeviceTokens();
+        List<UserDeviceTokenEntity> userTokens = deviceTokenRepository.findAllByUserId(currentUserId);
         userTokens.forEach(token -> token.setActive(false));
         deviceTokenRepository.saveAll(userTokens);
     }
 
     @Override
     public List<UserDeviceTokenEntity> getActiveTokensForUser(String userId) {
-        UserEntity currentUser = UserUtils.getCurrentUser()
+        String currentUserId = UserUtils.getCurrentUserId()
                 .orElseThrow(() -> new RuntimeException("User not logged in"));
 
-        UserUtils.isCurrentUser(userId, currentUser.getId());
-        return currentUser.getDeviceTokens().stream()
-                .filter(UserDeviceTokenEntity::isActive)
-                .collect(Collectors.toList());
+        UserUtils.isCurrentUser(userId, currentUserId);
+        return deviceTokenRepository.findAllByUserIdAndIsActiveTrue(currentUserId);
     }
 }
@@ -6,6 +6,8 @@ import com.bolezni.model.*;
 import com.bolezni.repository.NotificationRepository;
 import com.bolezni.repository.ProjectRepository;
 import com.bolezni.repository.UserDeviceTokenRepository;
+import com.bolezni.repository.UserRepository;
+import com.bolezni.security.UserPrincipal;
 import com.bolezni.service.NotificationService;
 import com.bolezni.utils.UserUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -32,6 +34,7 @@ public class FirebaseNotificationService implements NotificationService {
 
     private final NotificationRepository notificationRepository;
     private final ProjectRepository projectRepository;
+    private final UserRepository userRepository;
 
     @Override
     @Transactional
@@ -40,13 +43,17 @@ public class FirebaseNotificationService implements NotificationService {
                                                  Map<String, String> data,
                                                  NotificationType type) {
 
-        UserEntity user = UserUtils.getCurrentUser().orElseThrow(() -> new RuntimeException("User not logged in"));
+        UserPrincipal principal = UserUtils.getCurrentPrincipal()
+                .orElseThrow(() -> new RuntimeException("User not logged in"));
 
-        if (!user.isPushNotificationsEnabled()) {
+        if (!principal.pushNotificationsEnabled()) {
             log.warn("User is not push notifications enabled");
             throw new RuntimeException("User is not push notifications enabled");
         }
 
+        UserEntity user = userRepository.findById(principal.id())
+                .orElseThrow(() -> new RuntimeException("User not logged in"));
+
         NotificationEntity savedNotification = sendNotificationToUser(user, title, body, data, type);
 
         return new NotificationResponse(
@@ -1,11 +1,15 @@
 package com.bolezni.controller;
 
 import com.bolezni.dto.ApiResponse;
+import com.bolezni.dto.CursorPage;
 import com.bolezni.dto.ProjectCreateDto;
 import com.bolezni.dto.ProjectDto;
+import com.bolezni.dto.ProjectFilterDto;
+import com.bolezni.dto.ProjectFilterResponse;
 import com.bolezni.dto.ProjectUpdateDto;
 import com.bolezni.model.ProjectStatus;
 import com.bolezni.service.ProjectService;
+import com.bolezni.utils.ETagUtils;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -16,10 +20,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Set;
 
 @Slf4j
 @RestController
@@ -27,6 +35,8 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/v1/project")
 public class ProjectController {
 
+    private static final String ETAG_TYPE = "project";
+
     private final ProjectService projectService;
 
     @PostMapping
@@ -45,19 +55,29 @@ public class ProjectController {
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyAuthority('RECRUITER','ADMIN')")
     public ResponseEntity<ApiResponse<ProjectDto>> updateProject(@PathVariable(name = "id") Long id,
-                                                                 @RequestBody @Valid ProjectUpdateDto updateDto) {
-        ProjectDto dto = projectService.updateProject(id, updateDto);
+                                                                 @RequestBody @Valid ProjectUpdateDto updateDto,
+                                                                 @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ETagUtils.expectedVersion(ifMatch, ETAG_TYPE, id);
+        ProjectDto dto = projectService.updateProject(id, updateDto, expectedVersion);
         ApiResponse<ProjectDto> apiResponse = ApiResponse.<ProjectDto>builder()
                 .status(true)
                 .data(dto)
                 .message("Project updated successfully")
                 .build();
 
-        return ResponseEntity.status(HttpStatus.OK).body(apiResponse);
+        return ResponseEntity.status(HttpStatus.OK)
+                .eTag(ETagUtils.of(ETAG_TYPE, id, dto.version()))
+                .body(apiResponse);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<ProjectDto>> getProject(@PathVariable(name = "id") Long id) {
+    public ResponseEntity<ApiResponse<ProjectDto>> getProject(@PathVariable(name = "id") Long id, WebRequest request) {
+        // 304 отдаётся по версии из БД, до загрузки и сериализации проекта
+        String eTag = ETagUtils.of(ETAG_TYPE, id, projectService.getProjectVersion(id));
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
         ProjectDto dto = projectService.getProjectById(id);
         ApiResponse<ProjectDto> apiResponse = ApiResponse.<ProjectDto>builder()
                 .status(true)
@@ -65,7 +85,7 @@ public class ProjectController {
                 .message("The project was successfully received")
                 .build();
 
-        return ResponseEntity.status(HttpStatus.OK).body(apiResponse);
+        return ResponseEntity.status(HttpStatus.OK).eTag(eTag).body(apiResponse);
     }
 
     @DeleteMapping("/{id}")
@@ -105,6 +125,60 @@ public class ProjectController {
 
     }
 
+    @GetMapping("/all/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<ProjectDto>>> getAllProjectsByCursor(@RequestParam(name = "cursor", required = false) String cursor,
+                                                                                      @RequestParam(name = "size", defaultValue = "20") int size) {
+        CursorPage<ProjectDto> projectDtos = projectService.getProjects(cursor, size);
+        ApiResponse<CursorPage<ProjectDto>> apiResponse = ApiResponse.<CursorPage<ProjectDto>>builder()
+                .status(true)
+                .data(projectDtos)
+                .message("Request successfully completed ")
+                .build();
+
+        return ResponseEntity.status(HttpStatus.OK).body(apiResponse);
+    }
+
+    @GetMapping("/user/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<ProjectDto>>> getAllProjectsCurrentUserByCursor(@RequestParam(name = "cursor", required = false) String cursor,
+                                                                                                 @RequestParam(name = "size", defaultValue = "20") int size) {
+        CursorPage<ProjectDto> projectDtos = projectService.getProjectsCurrentUser(cursor, size);
+        ApiResponse<CursorPage<ProjectDto>> apiResponse = ApiResponse.<CursorPage<ProjectDto>>builder()
+                .status(true)
+                .data(projectDtos)
+                .message("Request successfully completed ")
+                .build();
+
+        return ResponseEntity.status(HttpStatus.OK).body(apiResponse);
+    }
+
+    @GetMapping("/filter")
+    public ResponseEntity<ApiResponse<ProjectFilterResponse>> filterProjects(@Valid ProjectFilterDto filter,
+                                                                             @PageableDefault(sort = "createdAt", direction = Sort.Direction.DESC) Pageable pageable) {
+        ProjectFilterResponse response = projectService.filterProjects(filter, pageable);
+        ApiResponse<ProjectFilterResponse> apiResponse = ApiResponse.<ProjectFilterResponse>builder()
+                .status(true)
+                .data(response)
+                .message("Request successfully completed ")
+                .build();
+
+        return ResponseEntity.status(HttpStatus.OK).body(apiResponse);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<Page<ProjectDto>>> searchProjects(@RequestParam(name = "q") @NotBlank String query,
+                                                                        @RequestParam(name = "status", required = false) ProjectStatus status,
+                                                                        @RequestParam(name = "category", required = false) Set<String> categories,
+                                                                        @PageableDefault Pageable pageable) {
+        Page<ProjectDto> projectDtos = projectService.searchProjects(query, status, categories, pageable);
+        ApiResponse<Page<ProjectDto>> apiResponse = ApiResponse.<Page<ProjectDto>>builder()
+                .status(true)
+                .data(projectDtos)
+                .message("Request successfully completed ")
+                .build();
+
+        return ResponseEntity.status(HttpStatus.OK).body(apiResponse);
+    }
+
     @PostMapping("/{projectId}/assign/{freelanceId}")
     public ResponseEntity<ApiResponse<Void>> assignProject(@PathVariable(name = "projectId") @Positive Long projectId,
                                                            @PathVariable(name = "freelanceId") @NotBlank String freelanceId) {
@@ -1,5 +1,7 @@
 package com.bolezni.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.math.BigDecimal;
 import java.util.Set;
 
@@ -9,6 +11,8 @@ public record ProjectDto(
         String description,
         BigDecimal price,
         String authorId,
-        Set<String> categories
+        Set<String> categories,
+        // Версия для ETag, в теле ответа не отдаётся; в списках не заполняется
+        @JsonIgnore Long version
 ) {
 }
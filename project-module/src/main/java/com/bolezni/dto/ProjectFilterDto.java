@@ -0,0 +1,18 @@
+package com.bolezni.dto;
+
+import com.bolezni.model.ProjectStatus;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+public record ProjectFilterDto(
+        Set<String> categories,
+        Set<ProjectStatus> statuses,
+        @PositiveOrZero BigDecimal minPrice,
+        @PositiveOrZero BigDecimal maxPrice,
+        LocalDateTime deadlineFrom,
+        LocalDateTime deadlineTo
+) {
+}
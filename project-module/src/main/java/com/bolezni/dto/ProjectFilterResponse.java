@@ -0,0 +1,13 @@
+package com.bolezni.dto;
+
+import com.bolezni.model.ProjectStatus;
+import org.springframework.data.domain.Page;
+
+import java.util.Map;
+
+public record ProjectFilterResponse(
+        Page<ProjectDto> projects,
+        Map<String, Long> categoryCounts,
+        Map<ProjectStatus, Long> statusCounts
+) {
+}
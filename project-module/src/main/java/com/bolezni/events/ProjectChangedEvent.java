@@ -0,0 +1,21 @@
+package com.bolezni.events;
+
+import lombok.Getter;
+
+/**
+ * Публикуется после любого изменения проекта. data - id проекта.
+ */
+@Getter
+public class ProjectChangedEvent extends BaseEvent<Long> {
+
+    private final boolean deleted;
+
+    public ProjectChangedEvent(Object source, Long projectId, boolean deleted) {
+        super(source, projectId);
+        this.deleted = deleted;
+    }
+
+    public ProjectChangedEvent(Object source, Long projectId) {
+        this(source, projectId, false);
+    }
+}
@@ -4,6 +4,7 @@ import com.bolezni.dto.ProjectCreateDto;
 import com.bolezni.dto.ProjectDto;
 import com.bolezni.model.CategoriesEntity;
 import com.bolezni.model.ProjectEntity;
+import com.bolezni.repository.projection.ProjectRow;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
@@ -19,6 +20,17 @@ public interface ProjectMapper {
     @Mapping(target = "categories", qualifiedByName = "mapCategoriesToStrings")
     ProjectDto mapProjectEntityToDto(ProjectEntity projectEntity);
 
+    /**
+     * Категории передаются отдельно, чтобы не трогать ленивую коллекцию проекта в списках
+     */
+    @Mapping(source = "projectEntity.author.id", target = "authorId")
+    @Mapping(source = "categories", target = "categories")
+    ProjectDto mapProjectEntityToDto(ProjectEntity projectEntity, Set<String> categories);
+
+    @Mapping(source = "categories", target = "categories")
+    @Mapping(target = "version", ignore = true)
+    ProjectDto mapProjectRowToDto(ProjectRow row, Set<String> categories);
+
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "author", ignore = true)
     @Mapping(target = "categories", ignore = true)
@@ -26,6 +38,7 @@ public interface ProjectMapper {
     @Mapping(target = "takenAt", ignore = true)
     @Mapping(target = "completedAt", ignore = true)
     @Mapping(target = "status", ignore = true)
+    @Mapping(target = "version", ignore = true)
     ProjectEntity mapProjectCreateToProjectDto(ProjectCreateDto projectCreateDto);
 
     @Named("mapCategoriesToStrings")
@@ -0,0 +1,271 @@
+package com.bolezni.search;
+
+import com.bolezni.dto.ProjectFilterDto;
+import com.bolezni.model.ProjectStatus;
+import com.bolezni.repository.projection.ProjectFacetRow;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Битовые индексы проектов по категориям и статусам для подсчёта фасетов в памяти.
+ * Номер бита - id проекта. Цена и дедлайн лежат в массивах по тому же номеру и проверяются только для кандидатов.
+ * Счётчики по категориям считаются без учёта фильтра по категориям (и так же для статусов),
+ * чтобы клиент видел, сколько проектов добавит выбор ещё одного значения.
+ * Индекс у каждого инстанса свой, изменения других инстансов приходят периодической сверкой с таблицей.
+ */
+@Component
+public class ProjectFacetIndex {
+
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    public record FacetCounts(long total, Map<String, Long> categories, Map<ProjectStatus, Long> statuses) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BitSet live = new BitSet();
+    private final Map<String, BitSet> byCategory = new HashMap<>();
+    private final Map<ProjectStatus, BitSet> byStatus = new EnumMap<>(ProjectStatus.class);
+    private final Map<Integer, Set<String>> categoriesById = new HashMap<>();
+    private double[] prices = new double[1024];
+    private long[] deadlines = new long[1024];
+    // Проекты, попавшие в индекс во время сверки; null - сверка не идёт
+    private BitSet resyncSeen;
+
+    /**
+     * Заменяет данные проектов из строк выборки; строки одного проекта должны идти в одном вызове
+     */
+    public void putAll(Collection<ProjectFacetRow> rows) {
+        Map<Long, List<ProjectFacetRow>> byProject = new HashMap<>();
+        rows.forEach(row -> byProject.computeIfAbsent(row.id(), id -> new ArrayList<>()).add(row));
+
+        lock.writeLock().lock();
+        try {
+            byProject.forEach((id, projectRows) -> {
+                int bit = toBit(id);
+                clear(bit);
+                if (resyncSeen != null) {
+                    resyncSeen.set(bit);
+                }
+
+                ProjectFacetRow first = projectRows.get(0);
+                ensureCapacity(bit);
+                live.set(bit);
+                byStatus.computeIfAbsent(first.status(), status -> new BitSet()).set(bit);
+                prices[bit] = first.price() != null ? first.price().doubleValue() : 0d;
+                deadlines[bit] = first.deadline() != null ? toEpochSecond(first.deadline()) : NO_DEADLINE;
+
+                Set<String> categories = new HashSet<>();
+                for (ProjectFacetRow row : projectRows) {
+                    if (row.category() != null) {
+                        byCategory.computeIfAbsent(row.category(), name -> new BitSet()).set(bit);
+                        categories.add(row.category());
+                    }
+                }
+                if (!categories.isEmpty()) {
+                    categoriesById.put(bit, categories);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long projectId) {
+        lock.writeLock().lock();
+        try {
+            clear(toBit(projectId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(Long projectId) {
+        lock.readLock().lock();
+        try {
+            return live.get(toBit(projectId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Начинает полную сверку с таблицей: проекты, не переданные в putAll до {@link #finishResync()}, будут удалены
+     *
+     * @return false, если сверка уже идёт
+     */
+    public boolean beginResync() {
+        lock.writeLock().lock();
+        try {
+            if (resyncSeen != null) {
+                return false;
+            }
+            resyncSeen = new BitSet();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return число удалённых проектов, которых больше нет в таблице
+     */
+    public int finishResync() {
+        lock.writeLock().lock();
+        try {
+            BitSet stale = (BitSet) live.clone();
+            stale.andNot(resyncSeen);
+            for (int bit = stale.nextSetBit(0); bit >= 0; bit = stale.nextSetBit(bit + 1)) {
+                clear(bit);
+            }
+            resyncSeen = null;
+            return stale.cardinality();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void cancelResync() {
+        lock.writeLock().lock();
+        try {
+            resyncSeen = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public FacetCounts count(ProjectFilterDto filter) {
+        lock.readLock().lock();
+        try {
+            BitSet range = rangeMatches(filter);
+            BitSet statusMatches = union(byStatus, filter.statuses());
+            BitSet categoryMatches = union(byCategory, filter.categories());
+
+            BitSet total = (BitSet) range.clone();
+            and(total, statusMatches);
+            and(total, categoryMatches);
+
+            BitSet categoryBase = (BitSet) range.clone();
+            and(categoryBase, statusMatches);
+            Map<String, Long> categoryCounts = new HashMap<>();
+            byCategory.forEach((name, bits) -> {
+                long count = intersectionCount(categoryBase, bits);
+                if (count > 0) {
+                    categoryCounts.put(name, count);
+                }
+            });
+
+            BitSet statusBase = (BitSet) range.clone();
+            and(statusBase, categoryMatches);
+            Map<ProjectStatus, Long> statusCounts = new EnumMap<>(ProjectStatus.class);
+            byStatus.forEach((status, bits) -> statusCounts.put(status, intersectionCount(statusBase, bits)));
+
+            return new FacetCounts(total.cardinality(), categoryCounts, statusCounts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet rangeMatches(ProjectFilterDto filter) {
+        BitSet result = (BitSet) live.clone();
+        if (filter.minPrice() == null && filter.maxPrice() == null
+                && filter.deadlineFrom() == null && filter.deadlineTo() == null) {
+            return result;
+        }
+
+        double minPrice = filter.minPrice() != null ? filter.minPrice().doubleValue() : Double.NEGATIVE_INFINITY;
+        double maxPrice = filter.maxPrice() != null ? filter.maxPrice().doubleValue() : Double.POSITIVE_INFINITY;
+        long deadlineFrom = filter.deadlineFrom() != null ? toEpochSecond(filter.deadlineFrom()) : Long.MIN_VALUE;
+        long deadlineTo = filter.deadlineTo() != null ? toEpochSecond(filter.deadlineTo()) : Long.MAX_VALUE;
+        boolean deadlineFiltered = filter.deadlineFrom() != null || filter.deadlineTo() != null;
+
+        for (int bit = result.nextSetBit(0); bit >= 0; bit = result.nextSetBit(bit + 1)) {
+            boolean priceMatches = prices[bit] >= minPrice && prices[bit] <= maxPrice;
+            boolean deadlineMatches = !deadlineFiltered
+                    || (deadlines[bit] != NO_DEADLINE && deadlines[bit] >= deadlineFrom && deadlines[bit] <= deadlineTo);
+            if (!priceMatches || !deadlineMatches) {
+                result.clear(bit);
+            }
+        }
+        return result;
+    }
+
+    private void clear(int bit) {
+        if (!live.get(bit)) {
+            return;
+        }
+        live.clear(bit);
+        byStatus.values().forEach(bits -> bits.clear(bit));
+        Set<String> categories = categoriesById.remove(bit);
+        if (categories != null) {
+            categories.forEach(name -> {
+                BitSet bits = byCategory.get(name);
+                if (bits != null) {
+                    bits.clear(bit);
+                    if (bits.isEmpty()) {
+                        byCategory.remove(name);
+                    }
+                }
+            });
+        }
+    }
+
+    private void ensureCapacity(int bit) {
+        if (bit >= prices.length) {
+            int size = Math.max(bit + 1, prices.length * 2);
+            prices = Arrays.copyOf(prices, size);
+            deadlines = Arrays.copyOf(deadlines, size);
+        }
+    }
+
+    private static <K> BitSet union(Map<K, BitSet> index, Set<K> keys) {
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        BitSet result = new BitSet();
+        for (K key : keys) {
+            BitSet bits = index.get(key);
+            if (bits != null) {
+                result.or(bits);
+            }
+        }
+        return result;
+    }
+
+    // null - фильтр не задан
+    private static void and(BitSet target, BitSet filter) {
+        if (filter != null) {
+            target.and(filter);
+        }
+    }
+
+    private static long intersectionCount(BitSet base, BitSet bits) {
+        BitSet intersection = (BitSet) bits.clone();
+        intersection.and(base);
+        return intersection.cardinality();
+    }
+
+    private static int toBit(Long projectId) {
+        if (projectId == null || projectId < 0 || projectId > Integer.MAX_VALUE - 1) {
+            throw new IllegalArgumentException("Project id out of facet index range: " + projectId);
+        }
+        return projectId.intValue();
+    }
+
+    private static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,295 @@
+package com.bolezni.search;
+
+import com.bolezni.model.CategoriesEntity;
+import com.bolezni.model.ProjectEntity;
+import com.bolezni.model.ProjectStatus;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.ru.RussianAnalyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiBits;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Встроенный полнотекстовый индекс проектов на Lucene.
+ * Заголовок и описание индексируются дважды, с русским и английским стеммингом, запрос ищется по обоим вариантам.
+ * Статус и категории - точные фильтры без влияния на релевантность. В индексе хранится только id проекта.
+ * Без app.project-search.index-path индекс живёт в памяти и собирается заново при старте.
+ * Вместе с документами коммитится отметка сверки: всё, что изменилось в таблице до неё, в индексе уже есть.
+ */
+@Slf4j
+@Component
+public class ProjectSearchIndex implements DisposableBean {
+
+    private static final String ID = "id";
+    private static final String TITLE_RU = "title_ru";
+    private static final String TITLE_EN = "title_en";
+    private static final String DESCRIPTION_RU = "description_ru";
+    private static final String DESCRIPTION_EN = "description_en";
+    private static final String STATUS = "status";
+    private static final String CATEGORY = "category";
+
+    private static final float TITLE_BOOST = 3f;
+    // Ограничение на размер запроса, чтобы длинный текст не упирался в лимит клауз BooleanQuery
+    private static final int MAX_QUERY_TERMS = 32;
+    private static final String WATERMARK = "update_watermark";
+
+    public record SearchResult(List<Long> ids, long totalHits) {
+    }
+
+    @Value("${app.project-search.index-path:}")
+    private String indexPath;
+
+    private Directory directory;
+    private Analyzer analyzer;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private volatile LocalDateTime watermark;
+
+    @PostConstruct
+    void init() throws IOException {
+        directory = StringUtils.hasText(indexPath)
+                ? FSDirectory.open(Path.of(indexPath))
+                : new ByteBuffersDirectory();
+        if (DirectoryReader.indexExists(directory)) {
+            String committed = SegmentInfos.readLatestCommit(directory).getUserData().get(WATERMARK);
+            watermark = committed != null ? LocalDateTime.parse(committed) : null;
+        }
+
+        Analyzer russian = new RussianAnalyzer();
+        Analyzer english = new EnglishAnalyzer();
+        analyzer = new PerFieldAnalyzerWrapper(new StandardAnalyzer(), Map.of(
+                TITLE_RU, russian,
+                DESCRIPTION_RU, russian,
+                TITLE_EN, english,
+                DESCRIPTION_EN, english
+        ));
+
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+        log.info("Project search index opened with {} documents, synced up to {}", writer.getDocStats().numDocs, watermark);
+    }
+
+    public int size() {
+        return writer.getDocStats().numDocs;
+    }
+
+    /**
+     * @return момент последней сверки с таблицей или пусто, если индекс ещё не сверялся
+     */
+    public Optional<LocalDateTime> watermark() {
+        return Optional.ofNullable(watermark);
+    }
+
+    /**
+     * Сдвигает отметку сверки; на диск она попадает со следующим {@link #commit()} вместе с документами
+     */
+    public void advanceWatermark(LocalDateTime value) {
+        watermark = value;
+        writer.setLiveCommitData(Map.of(WATERMARK, value.toString()).entrySet());
+    }
+
+    /**
+     * Удаляет документы проектов, для которых exists вернул false
+     *
+     * @return число удалённых документов
+     */
+    public int retainOnly(LongPredicate exists) {
+        try {
+            searcherManager.maybeRefreshBlocking();
+            List<Term> stale = new ArrayList<>();
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                IndexReader reader = searcher.getIndexReader();
+                StoredFields storedFields = reader.storedFields();
+                Bits liveDocs = MultiBits.getLiveDocs(reader);
+                for (int doc = 0; doc < reader.maxDoc(); doc++) {
+                    if (liveDocs != null && !liveDocs.get(doc)) {
+                        continue;
+                    }
+                    String id = storedFields.document(doc, Set.of(ID)).get(ID);
+                    if (!exists.test(Long.parseLong(id))) {
+                        stale.add(new Term(ID, id));
+                    }
+                }
+            } finally {
+                searcherManager.release(searcher);
+            }
+
+            if (!stale.isEmpty()) {
+                writer.deleteDocuments(stale.toArray(Term[]::new));
+                searcherManager.maybeRefresh();
+            }
+            return stale.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void index(ProjectEntity project) {
+        indexAll(List.of(project));
+    }
+
+    public void indexAll(Collection<ProjectEntity> projects) {
+        try {
+            for (ProjectEntity project : projects) {
+                writer.updateDocument(new Term(ID, String.valueOf(project.getId())), toDocument(project));
+            }
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void delete(Long projectId) {
+        try {
+            writer.deleteDocuments(new Term(ID, String.valueOf(projectId)));
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return id проектов в порядке убывания релевантности
+     */
+    public SearchResult search(String text, ProjectStatus status, Collection<String> categories, int offset, int limit) {
+        BooleanQuery.Builder textQuery = new BooleanQuery.Builder();
+        int terms = addTerms(textQuery, TITLE_RU, text, TITLE_BOOST)
+                + addTerms(textQuery, TITLE_EN, text, TITLE_BOOST)
+                + addTerms(textQuery, DESCRIPTION_RU, text, 1f)
+                + addTerms(textQuery, DESCRIPTION_EN, text, 1f);
+        if (terms == 0) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder()
+                .add(textQuery.build(), BooleanClause.Occur.MUST);
+        if (status != null) {
+            query.add(new TermQuery(new Term(STATUS, status.name())), BooleanClause.Occur.FILTER);
+        }
+        if (categories != null && !categories.isEmpty()) {
+            BooleanQuery.Builder categoryQuery = new BooleanQuery.Builder();
+            categories.forEach(category ->
+                    categoryQuery.add(new TermQuery(new Term(CATEGORY, category)), BooleanClause.Occur.SHOULD));
+            query.add(categoryQuery.build(), BooleanClause.Occur.FILTER);
+        }
+
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query.build(), offset + limit);
+                StoredFields storedFields = searcher.storedFields();
+
+                List<Long> ids = new ArrayList<>(limit);
+                ScoreDoc[] scoreDocs = topDocs.scoreDocs;
+                for (int i = offset; i < scoreDocs.length; i++) {
+                    ids.add(Long.valueOf(storedFields.document(scoreDocs[i].doc).get(ID)));
+                }
+                return new SearchResult(ids, topDocs.totalHits.value);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Фиксирует изменения на диске. Поиск видит изменения сразу после записи, commit нужен только для переживания рестарта.
+     */
+    @Scheduled(fixedDelayString = "${app.project-search.commit-interval-ms:10000}")
+    public void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException e) {
+            log.error("Project search index commit failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private Document toDocument(ProjectEntity project) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(project.getId()), Field.Store.YES));
+        document.add(new TextField(TITLE_RU, project.getTitle(), Field.Store.NO));
+        document.add(new TextField(TITLE_EN, project.getTitle(), Field.Store.NO));
+        document.add(new TextField(DESCRIPTION_RU, project.getDescription(), Field.Store.NO));
+        document.add(new TextField(DESCRIPTION_EN, project.getDescription(), Field.Store.NO));
+        document.add(new StringField(STATUS, project.getStatus().name(), Field.Store.NO));
+        if (project.getCategories() != null) {
+            for (CategoriesEntity category : project.getCategories()) {
+                document.add(new StringField(CATEGORY, category.getName(), Field.Store.NO));
+            }
+        }
+        return document;
+    }
+
+    private int addTerms(BooleanQuery.Builder builder, String field, String text, float boost) {
+        int count = 0;
+        try (TokenStream stream = analyzer.tokenStream(field, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken() && count < MAX_QUERY_TERMS) {
+                builder.add(new BoostQuery(new TermQuery(new Term(field, term.toString())), boost), BooleanClause.Occur.SHOULD);
+                count++;
+            }
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return count;
+    }
+}
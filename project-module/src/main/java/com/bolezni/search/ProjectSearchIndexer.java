@@ -0,0 +1,170 @@
+package com.bolezni.search;
+
+import com.bolezni.events.ProjectChangedEvent;
+import com.bolezni.model.ProjectEntity;
+import com.bolezni.repository.ProjectRepository;
+import com.bolezni.repository.projection.ProjectFacetRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Поддерживает поисковый и фасетный индексы в соответствии с таблицей projects.
+ * Изменения применяются после коммита транзакции. При старте фасеты строятся всегда (они только в памяти),
+ * полнотекстовый индекс - только если он пуст или ещё не сверялся.
+ * Периодически фасеты сверяются с таблицей целиком, а полнотекстовый индекс догоняет её по update_at с прошлой отметки:
+ * так в индексы попадают изменения других инстансов, изменения, сделанные пока приложение было остановлено,
+ * и записи, не успевшие попасть в коммит индекса перед падением.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProjectSearchIndexer {
+
+    private final ProjectSearchIndex searchIndex;
+    private final ProjectFacetIndex facetIndex;
+    private final ProjectRepository projectRepository;
+
+    @Value("${app.project-search.reindex-batch-size:500}")
+    private int reindexBatchSize;
+
+    // Запас на расхождение часов инстансов и транзакции, закоммиченные позже проставленного update_at
+    @Value("${app.project-search.catch-up-overlap-seconds:60}")
+    private long catchUpOverlapSeconds;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProjectChanged(ProjectChangedEvent event) {
+        Long projectId = event.getData();
+        try {
+            if (event.isDeleted()) {
+                searchIndex.delete(projectId);
+                facetIndex.remove(projectId);
+                return;
+            }
+            List<ProjectEntity> projects = projectRepository.findAllWithCategoriesByIdIn(List.of(projectId));
+            if (projects.isEmpty()) {
+                searchIndex.delete(projectId);
+                facetIndex.remove(projectId);
+            } else {
+                searchIndex.index(projects.get(0));
+                facetIndex.putAll(projectRepository.findFacetRowsByIdIn(List.of(projectId)));
+            }
+        } catch (RuntimeException e) {
+            // Ошибка индекса не должна ломать запись проекта; расхождение исправит переиндексация
+            log.error("Failed to update search index for project {}: {}", projectId, e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexes() {
+        boolean rebuildFullText = searchIndex.size() == 0 || searchIndex.watermark().isEmpty();
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        long start = System.currentTimeMillis();
+        long indexed = syncFacets(rebuildFullText);
+        if (rebuildFullText) {
+            searchIndex.retainOnly(facetIndex::contains);
+            searchIndex.advanceWatermark(startedAt);
+        } else {
+            catchUpFullText();
+        }
+        searchIndex.commit();
+        log.info("Project indexes built with {} projects in {} ms (full-text rebuilt: {})",
+                indexed, System.currentTimeMillis() - start, rebuildFullText);
+    }
+
+    @Scheduled(fixedDelayString = "${app.project-search.resync-interval-ms:60000}",
+            initialDelayString = "${app.project-search.resync-interval-ms:60000}")
+    public void resync() {
+        long start = System.currentTimeMillis();
+        try {
+            long indexed = syncFacets(false);
+            if (indexed >= 0) {
+                catchUpFullText();
+                log.debug("Project indexes resynced with {} projects in {} ms",
+                        indexed, System.currentTimeMillis() - start);
+            }
+        } catch (RuntimeException e) {
+            log.error("Project index resync failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Удаляет из полнотекстового индекса проекты, которых нет в только что сверенных фасетах,
+     * и переиндексирует проекты, изменённые с прошлой отметки
+     */
+    private void catchUpFullText() {
+        Optional<LocalDateTime> watermark = searchIndex.watermark();
+        if (watermark.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        LocalDateTime since = watermark.get().minusSeconds(catchUpOverlapSeconds);
+        int removed = searchIndex.retainOnly(facetIndex::contains);
+
+        long reindexed = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<Long> ids = projectRepository.findIdsChangedSince(since, afterId, PageRequest.ofSize(reindexBatchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            searchIndex.indexAll(projectRepository.findAllWithCategoriesByIdIn(ids));
+            reindexed += ids.size();
+            afterId = ids.get(ids.size() - 1);
+        }
+        searchIndex.advanceWatermark(startedAt);
+
+        if (removed > 0 || reindexed > 0) {
+            log.info("Project search index caught up: {} projects reindexed, {} removed", reindexed, removed);
+        }
+    }
+
+    /**
+     * Полный проход по таблице; проекты, которых в ней больше нет, удаляются из фасетов.
+     * Без общей транзакции: каждая пачка читается отдельно и не копится в persistence context.
+     *
+     * @return число проектов или -1, если сверка уже идёт
+     */
+    private long syncFacets(boolean withFullText) {
+        if (!facetIndex.beginResync()) {
+            return -1;
+        }
+        try {
+            long indexed = 0;
+            Long afterId = 0L;
+            while (true) {
+                List<Long> ids = projectRepository.findIdsAfter(afterId, PageRequest.ofSize(reindexBatchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                List<ProjectFacetRow> facetRows = projectRepository.findFacetRowsByIdIn(ids);
+                facetIndex.putAll(facetRows);
+                if (withFullText) {
+                    searchIndex.indexAll(projectRepository.findAllWithCategoriesByIdIn(ids));
+                }
+                indexed += ids.size();
+                afterId = ids.get(ids.size() - 1);
+            }
+            int removed = facetIndex.finishResync();
+            if (removed > 0) {
+                log.info("Removed {} deleted projects from the facet index", removed);
+            }
+            return indexed;
+        } catch (RuntimeException e) {
+            facetIndex.cancelResync();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.bolezni.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Справочник категорий name -> id в памяти. Загружается целиком при старте,
+ * недостающие имена создаются одним запросом INSERT ... ON CONFLICT DO NOTHING RETURNING.
+ * Вставка идёт в отдельной транзакции: откат транзакции проекта не должен оставлять в справочнике id несуществующих строк.
+ * Категории не удаляются, поэтому записи справочника не устаревают.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CategoryDictionary {
+
+    private static final String SELECT_ALL = "SELECT id, name FROM categories";
+
+    // Основной SELECT не видит строки, вставленные в том же запросе, поэтому результат - объединение вставленных и существующих
+    private static final String UPSERT = "WITH input(name) AS (SELECT DISTINCT unnest(?::text[])), " +
+            "inserted AS (INSERT INTO categories (id, name, created_at, update_at) " +
+            "SELECT nextval('%s'), name, now(), now() FROM input " +
+            "ON CONFLICT (name) DO NOTHING RETURNING id, name) " +
+            "SELECT id, name FROM inserted " +
+            "UNION ALL " +
+            "SELECT c.id, c.name FROM categories c JOIN input i ON c.name = i.name";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    // Неявная последовательность Hibernate 6 для CategoriesEntity
+    @Value("${app.categories.sequence:categories_entity_seq}")
+    private String sequenceName;
+
+    private final Map<String, Long> idsByName = new ConcurrentHashMap<>();
+    private final Map<Long, String> namesById = new ConcurrentHashMap<>();
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        jdbcTemplate.query(SELECT_ALL, (RowCallbackHandler) rs -> put(rs.getString("name"), rs.getLong("id")));
+        log.info("Category dictionary loaded with {} categories", idsByName.size());
+    }
+
+    /**
+     * @return id для каждого имени; отсутствующие категории создаются
+     */
+    public Map<String, Long> resolveIds(Collection<String> names) {
+        Map<String, Long> result = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String name : names) {
+            Long id = idsByName.get(name);
+            if (id != null) {
+                result.put(name, id);
+            } else {
+                missing.add(name);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        upsert(missing);
+        for (String name : missing) {
+            Long id = idsByName.get(name);
+            if (id == null) {
+                // Параллельная вставка закоммичена после снимка нашего запроса - такие строки видны только следующему запросу
+                upsert(Set.of(name));
+                id = idsByName.get(name);
+            }
+            if (id == null) {
+                log.error("Failed to resolve category {}", name);
+                throw new RuntimeException("Failed to resolve category");
+            }
+            result.put(name, id);
+        }
+        return result;
+    }
+
+    public String nameOf(Long id) {
+        return namesById.get(id);
+    }
+
+    private void upsert(Collection<String> names) {
+        String sql = UPSERT.formatted(sequenceName);
+        Object[] values = names.toArray();
+
+        // В справочник попадают только закоммиченные строки
+        Map<String, Long> rows = transactionTemplate.execute(status -> {
+            Map<String, Long> upserted = new HashMap<>();
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(sql);
+                statement.setArray(1, connection.createArrayOf("text", values));
+                return statement;
+            }, (RowCallbackHandler) rs -> upserted.put(rs.getString("name"), rs.getLong("id")));
+            return upserted;
+        });
+        if (rows != null) {
+            rows.forEach(this::put);
+        }
+    }
+
+    private void put(String name, Long id) {
+        idsByName.put(name, id);
+        namesById.put(id, name);
+    }
+}
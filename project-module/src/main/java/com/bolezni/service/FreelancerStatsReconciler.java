@@ -0,0 +1,67 @@
+package com.bolezni.service;
+
+import com.bolezni.repository.FreelancerStatsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Периодически сверяет счётчики фрилансеров с таблицей projects.
+ * Счётчики меняются в транзакциях смены статуса, сверка исправляет то, что изменено в обход сервиса.
+ * Каждый фрилансер сверяется в своей транзакции под блокировкой строки счётчиков.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FreelancerStatsReconciler {
+
+    private final FreelancerStatsRepository freelancerStatsRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    private TransactionTemplate transactionTemplate;
+    private Counter correctedCounter;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        correctedCounter = meterRegistry.counter("freelancer.stats.corrected");
+    }
+
+    @Scheduled(fixedDelayString = "${app.freelancer-stats.reconcile-interval-ms:3600000}",
+            initialDelayString = "${app.freelancer-stats.reconcile-initial-delay-ms:120000}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        int rows = 0;
+        for (String userId : freelancerStatsRepository.findAllUserIds()) {
+            try {
+                Integer corrected = transactionTemplate.execute(status -> reconcile(userId));
+                rows += corrected != null ? corrected : 0;
+            } catch (RuntimeException e) {
+                log.error("Freelancer stats reconciliation failed for user {}: {}", userId, e.getMessage());
+            }
+        }
+        correctedCounter.increment(rows);
+
+        if (rows > 0) {
+            log.warn("Corrected {} freelancer stats rows in {} ms", rows, System.currentTimeMillis() - start);
+        } else {
+            log.debug("Freelancer stats are consistent");
+        }
+    }
+
+    // Пока строка заблокирована, параллельное назначение либо уже закоммичено и видно пересчёту,
+    // либо ещё не изменило счётчик и добавит свой +1 к пересчитанному значению
+    private int reconcile(String userId) {
+        if (freelancerStatsRepository.lockByUserId(userId).isEmpty()) {
+            return 0;
+        }
+        return freelancerStatsRepository.recount(userId);
+    }
+}
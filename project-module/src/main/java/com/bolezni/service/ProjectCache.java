@@ -0,0 +1,66 @@
+package com.bolezni.service;
+
+import com.bolezni.dto.ProjectDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Кэш карточек проектов по id. Одновременные промахи по одному id ждут одну загрузку из БД.
+ * Отсутствующие проекты не кэшируются.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProjectCache {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.project-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${app.project-cache.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    private Cache<Long, ProjectDto> projects;
+
+    @PostConstruct
+    void init() {
+        projects = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, projects, "project.by-id");
+    }
+
+    /**
+     * @return карточка проекта или null, если загрузчик её не нашёл
+     */
+    public ProjectDto get(Long projectId, Function<Long, ProjectDto> loader) {
+        return projects.get(projectId, loader);
+    }
+
+    public void evict(Long projectId) {
+        projects.invalidate(projectId);
+
+        // Повторная инвалидация после коммита: до коммита параллельное чтение могло загрузить старое состояние
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    projects.invalidate(projectId);
+                }
+            });
+        }
+    }
+}
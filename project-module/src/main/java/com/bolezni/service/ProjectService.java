@@ -1,25 +1,43 @@
 package com.bolezni.service;
 
+import com.bolezni.dto.CursorPage;
 import com.bolezni.dto.ProjectCreateDto;
 import com.bolezni.dto.ProjectDto;
+import com.bolezni.dto.ProjectFilterDto;
+import com.bolezni.dto.ProjectFilterResponse;
 import com.bolezni.dto.ProjectUpdateDto;
 import com.bolezni.model.ProjectStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Set;
+
 public interface ProjectService {
     ProjectDto createProject(ProjectCreateDto projectCreateDto);
 
-    ProjectDto updateProject(Long projectId, ProjectUpdateDto projectUpdateDto);
+    /**
+     * @param expectedVersion версия из If-Match или null, если клиент её не передал
+     */
+    ProjectDto updateProject(Long projectId, ProjectUpdateDto projectUpdateDto, Long expectedVersion);
 
     void deleteProject(Long id);
 
     ProjectDto getProjectById(Long id);
 
+    long getProjectVersion(Long id);
+
     Page<ProjectDto> getProjects(Pageable pageable);
 
     Page<ProjectDto> getProjectsCurrentUser(Pageable pageable);
 
+    CursorPage<ProjectDto> getProjects(String cursor, int size);
+
+    CursorPage<ProjectDto> getProjectsCurrentUser(String cursor, int size);
+
+    ProjectFilterResponse filterProjects(ProjectFilterDto filter, Pageable pageable);
+
+    Page<ProjectDto> searchProjects(String query, ProjectStatus status, Set<String> categories, Pageable pageable);
+
     void assignProjectToFreelancer(Long projectId, String freelancerId);
 
     void unassignProjectFromFreelancer(Long projectId, String freelancerId);
@@ -1,32 +1,54 @@
 package com.bolezni.service.impl;
 
+import com.bolezni.dto.CursorPage;
 import com.bolezni.dto.ProjectCreateDto;
 import com.bolezni.dto.ProjectDto;
+import com.bolezni.dto.ProjectFilterDto;
+import com.bolezni.dto.ProjectFilterResponse;
 import com.bolezni.dto.ProjectUpdateDto;
+import com.bolezni.events.ProjectChangedEvent;
 import com.bolezni.mapper.ProjectMapper;
 import com.bolezni.model.CategoriesEntity;
 import com.bolezni.model.ProjectEntity;
 import com.bolezni.model.ProjectStatus;
 import com.bolezni.model.UserEntity;
 import com.bolezni.repository.CategoryRepository;
+import com.bolezni.repository.FreelancerStatsRepository;
+import com.bolezni.repository.KeysetCursor;
 import com.bolezni.repository.ProjectRepository;
 import com.bolezni.repository.UserRepository;
+import com.bolezni.repository.projection.ProjectCategoryRow;
+import com.bolezni.repository.projection.ProjectRow;
+import com.bolezni.search.ProjectFacetIndex;
+import com.bolezni.search.ProjectSearchIndex;
+import com.bolezni.specification.ProjectSpecifications;
+import com.bolezni.service.CategoryDictionary;
+import com.bolezni.service.ProjectCache;
 import com.bolezni.service.ProjectService;
 import com.bolezni.utils.UpdateFieldUtils;
 import com.bolezni.utils.UserUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -35,12 +57,18 @@ import java.util.stream.Collectors;
 public class ProjectServiceImpl implements ProjectService {
 
     private static final long MAX_ACTIVE_PROJECTS = 5L;
+    private static final int MAX_SEARCH_RESULTS = 1000;
 
     private final ProjectRepository projectRepository;
     private final ProjectMapper projectMapper;
     private final CategoryRepository categoryRepository;
+    private final CategoryDictionary categoryDictionary;
+    private final ProjectCache projectCache;
+    private final FreelancerStatsRepository freelancerStatsRepository;
     private final UserRepository userRepository;
-
+    private final ProjectSearchIndex searchIndex;
+    private final ProjectFacetIndex facetIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -49,22 +77,12 @@ public class ProjectServiceImpl implements ProjectService {
             log.error("projectCreateDto is null");
             throw new RuntimeException("projectCreateDto is null");
         }
-        UserEntity author = UserUtils.getCurrentUser()
+        UserEntity author = UserUtils.getCurrentUserReference(userRepository)
                 .orElseThrow(() -> new RuntimeException("User not found or non authorized"));
 
         ProjectEntity project = projectMapper.mapProjectCreateToProjectDto(projectCreateDto);
         project.setAuthor(author);
 
-        if (!projectCreateDto.categories().isEmpty()) {
-            Set<String> cleanCategories = projectCreateDto.categories().stream()
-                    .filter(StringUtils::hasText)
-                    .map(String::trim)
-                    .collect(Collectors.toSet());
-
-            Set<CategoriesEntity> categories = findOrCreateCategories(cleanCategories);
-            project.setCategories(categories);
-        }
-
         LocalDateTime now = LocalDateTime.now();
 
         if (projectCreateDto.deadline().isBefore(now) || projectCreateDto.deadline().isEqual(now)) {
@@ -78,15 +96,27 @@ public class ProjectServiceImpl implements ProjectService {
             throw new IllegalArgumentException("Deadline cannot be more than 2 years in the future");
         }
 
+        // Категории создаются после проверок, чтобы отклонённый запрос не пополнял справочник
+        if (!projectCreateDto.categories().isEmpty()) {
+            Set<String> cleanCategories = projectCreateDto.categories().stream()
+                    .filter(StringUtils::hasText)
+                    .map(String::trim)
+                    .collect(Collectors.toSet());
+
+            Set<CategoriesEntity> categories = findOrCreateCategories(cleanCategories);
+            project.setCategories(categories);
+        }
+
         ProjectEntity savedProject = projectRepository.saveAndFlush(project);
         log.info("Project created with id {}", savedProject.getId());
+        eventPublisher.publishEvent(new ProjectChangedEvent(this, savedProject.getId()));
 
-        return projectMapper.mapProjectEntityToDto(savedProject);
+        return mapToDto(savedProject);
     }
 
     @Override
     @Transactional
-    public ProjectDto updateProject(Long projectId, ProjectUpdateDto updateDto) {
+    public ProjectDto updateProject(Long projectId, ProjectUpdateDto updateDto, Long expectedVersion) {
         if (updateDto == null) {
             log.error("projectUpdateDto is null");
             throw new RuntimeException("projectUpdateDto is null");
@@ -95,24 +125,38 @@ public class ProjectServiceImpl implements ProjectService {
         ProjectEntity project = projectRepository.findById(projectId)
                 .orElseThrow(() -> new RuntimeException("Project not found"));
 
-        UserEntity user = UserUtils.getCurrentUser()
+        String userId = UserUtils.getCurrentUserId()
                 .orElseThrow(() -> new RuntimeException("User not found or not logged in"));
 
-        if (!user.getId().equals(project.getAuthor().getId())) {
+        if (!userId.equals(project.getAuthor().getId())) {
             log.error("User not logged in");
             throw new RuntimeException("User not logged in");
         }
 
+        if (expectedVersion != null && !expectedVersion.equals(project.getVersion())) {
+            log.warn("Project {} version mismatch: expected {}, actual {}", projectId, expectedVersion, project.getVersion());
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Project was modified");
+        }
+
         boolean hasChanges = updateFiledProjectEntity(project, updateDto);
 
         if (!hasChanges) {
             log.info("Project has changes");
-            return projectMapper.mapProjectEntityToDto(project);
+            return mapToDto(project);
         }
 
-        ProjectEntity savedProject = projectRepository.save(project);
+        // Flush сразу, чтобы параллельное изменение после проверки версии тоже дало 412, а не ошибку при коммите
+        ProjectEntity savedProject;
+        try {
+            savedProject = projectRepository.saveAndFlush(project);
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Concurrent update of project {}", projectId);
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Project was modified");
+        }
+        projectCache.evict(savedProject.getId());
+        eventPublisher.publishEvent(new ProjectChangedEvent(this, savedProject.getId()));
 
-        return projectMapper.mapProjectEntityToDto(savedProject);
+        return mapToDto(savedProject);
     }
 
     private boolean updateFiledProjectEntity(ProjectEntity project, ProjectUpdateDto updateDto) {
@@ -134,11 +178,7 @@ public class ProjectServiceImpl implements ProjectService {
                 .map(String::trim)
                 .collect(Collectors.toSet());
 
-        Set<String> currentCategoryNames = project.getCategories() != null
-                ? project.getCategories().stream()
-                .map(CategoriesEntity::getName)
-                .collect(Collectors.toSet())
-                : Set.of();
+        Set<String> currentCategoryNames = categoryNames(project);
 
         if (Objects.equals(currentCategoryNames, cleanCategories)) {
             return false;
@@ -154,94 +194,221 @@ public class ProjectServiceImpl implements ProjectService {
         return true;
     }
 
+    // Справочник отдаёт id без запроса к БД, в проект кладутся ссылки без загрузки строк категорий
     private Set<CategoriesEntity> findOrCreateCategories(Set<String> categories) {
-        Set<CategoriesEntity> existingCategories = categoryRepository.findByNameIn(categories);
-
-        Set<String> existingCategoriesNames = existingCategories.stream()
-                .map(CategoriesEntity::getName)
+        return categoryDictionary.resolveIds(categories).values().stream()
+                .map(categoryRepository::getReferenceById)
                 .collect(Collectors.toSet());
+    }
 
-        Set<String> categoriesToCreate = categories.stream()
-                .filter(name -> !existingCategoriesNames.contains(name))
-                .collect(Collectors.toSet());
+    private ProjectDto mapToDto(ProjectEntity project) {
+        return projectMapper.mapProjectEntityToDto(project, categoryNames(project));
+    }
 
-        Set<CategoriesEntity> newCategories = new HashSet<>();
-        for (String name : categoriesToCreate) {
-            try {
-                CategoriesEntity newCategory = categoryRepository.save(
-                        CategoriesEntity.builder()
-                                .name(name)
-                                .build()
-                );
-                newCategories.add(newCategory);
-            } catch (DataIntegrityViolationException e) {
-
-                CategoriesEntity existing = categoryRepository.findByName(name)
-                        .orElseThrow(() -> new RuntimeException("Failed to handle duplicate category"));
-                newCategories.add(existing);
-            }
+    // Имена берутся из справочника, чтобы не инициализировать ссылки из findOrCreateCategories
+    private Set<String> categoryNames(ProjectEntity project) {
+        if (project.getCategories() == null) {
+            return Set.of();
         }
-
-        Set<CategoriesEntity> result = new HashSet<>(existingCategories);
-        result.addAll(newCategories);
-
-        return result;
+        return project.getCategories().stream()
+                .map(category -> Objects.requireNonNullElseGet(
+                        categoryDictionary.nameOf(category.getId()), category::getName))
+                .collect(Collectors.toSet());
     }
 
     @Override
     @Transactional
     public void deleteProject(Long id) {
-        UserEntity user = UserUtils.getCurrentUser()
+        String userId = UserUtils.getCurrentUserId()
                 .orElseThrow(() -> new RuntimeException("User not logged in"));
 
-        if (projectRepository.existsByAuthorId(user.getId())) {
-            projectRepository.deleteById(id);
-        } else
+        ProjectEntity project = projectRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Project not exists"));
+
+        if (!project.getAuthor().getId().equals(userId)) {
+            log.error("Current user is not the author of project {}", id);
             throw new RuntimeException("Project not exists");
+        }
+
+        projectRepository.delete(project);
+        if (project.getFreelancer() != null) {
+            updateFreelancerCounters(project.getFreelancer().getId(), project.getStatus(), null);
+        }
+        projectCache.evict(id);
+        eventPublisher.publishEvent(new ProjectChangedEvent(this, id, true));
     }
 
     @Override
     public ProjectDto getProjectById(Long id) {
-        ProjectEntity projectEntity = projectRepository.findById(id)
+        ProjectDto project = projectCache.get(id, this::loadProject);
+        if (project == null) {
+            throw new RuntimeException("Project not found");
+        }
+        return project;
+    }
+
+    @Override
+    public long getProjectVersion(Long id) {
+        return projectRepository.findVersionById(id)
                 .orElseThrow(() -> new RuntimeException("Project not found"));
+    }
+
+    // Категории загружаются тем же запросом, id автора берётся из внешнего ключа
+    private ProjectDto loadProject(Long id) {
+        List<ProjectEntity> projects = projectRepository.findAllWithCategoriesByIdIn(List.of(id));
 
-        return projectMapper.mapProjectEntityToDto(projectEntity);
+        return projects.isEmpty() ? null : projectMapper.mapProjectEntityToDto(projects.get(0));
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<ProjectDto> getProjects(Pageable pageable) {
-        Page<ProjectEntity> pageEntities = projectRepository.findAll(pageable);
+        Page<ProjectRow> page = projectRepository.findAllRows(pageable);
 
-        return pageEntities.map(projectMapper::mapProjectEntityToDto);
+        return new PageImpl<>(mapRows(page.getContent()), pageable, page.getTotalElements());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Page<ProjectDto> getProjectsCurrentUser(Pageable pageable) {
-        UserEntity user = UserUtils.getCurrentUser().orElseThrow(() -> new RuntimeException("User not logged in"));
+        String userId = UserUtils.getCurrentUserId().orElseThrow(() -> new RuntimeException("User not logged in"));
+
+        Page<ProjectRow> page = projectRepository.findRowsByAuthorId(userId, pageable);
+
+        return new PageImpl<>(mapRows(page.getContent()), pageable, page.getTotalElements());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProjectDto> getProjects(String cursor, int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+
+        List<ProjectRow> rows = projectRepository.findPageBefore(
+                position.createdAt(), position.id(), Limit.of(pageSize + 1));
 
-        Page<ProjectEntity> pageEntities = projectRepository.findAllByAuthorId(pageable, user.getId());
+        return CursorPage.ofBatch(rows, pageSize, this::cursorOf, this::mapRows);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProjectDto> getProjectsCurrentUser(String cursor, int size) {
+        String userId = UserUtils.getCurrentUserId().orElseThrow(() -> new RuntimeException("User not logged in"));
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+
+        List<ProjectRow> rows = projectRepository.findPageByAuthorIdBefore(
+                userId, position.createdAt(), position.id(), Limit.of(pageSize + 1));
+
+        return CursorPage.ofBatch(rows, pageSize, this::cursorOf, this::mapRows);
+    }
+
+    private KeysetCursor cursorOf(ProjectRow project) {
+        return new KeysetCursor(project.createdAt(), project.id());
+    }
+
+    /**
+     * Строки страницы в DTO: категории всей страницы догружаются одним запросом
+     */
+    private List<ProjectDto> mapRows(List<ProjectRow> rows) {
+        Map<Long, Set<String>> categories = findCategoryNames(rows.stream().map(ProjectRow::id).toList());
+
+        return rows.stream()
+                .map(row -> projectMapper.mapProjectRowToDto(row, categories.getOrDefault(row.id(), Set.of())))
+                .toList();
+    }
+
+    private Map<Long, Set<String>> findCategoryNames(Collection<Long> projectIds) {
+        if (projectIds.isEmpty()) {
+            return Map.of();
+        }
+        return projectRepository.findCategoryRowsByProjectIdIn(projectIds).stream()
+                .collect(Collectors.groupingBy(ProjectCategoryRow::projectId,
+                        Collectors.mapping(ProjectCategoryRow::name, Collectors.toSet())));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProjectFilterResponse filterProjects(ProjectFilterDto filter, Pageable pageable) {
+        if (filter == null) {
+            log.error("Project filter is null");
+            throw new IllegalArgumentException("Project filter is null");
+        }
+
+        // Slice выбирает size + 1 строк без COUNT(*): общее число берётся из индекса фасетов
+        Slice<ProjectEntity> slice = projectRepository.findBy(ProjectSpecifications.byFilter(filter),
+                query -> query.slice(pageable));
+        Map<Long, Set<String>> categories = findCategoryNames(slice.map(ProjectEntity::getId).getContent());
+        List<ProjectDto> content = slice.getContent().stream()
+                .map(project -> projectMapper.mapProjectEntityToDto(project,
+                        categories.getOrDefault(project.getId(), Set.of())))
+                .toList();
+
+        // Все счётчики фасетов считаются в памяти, без COUNT по каждому значению
+        ProjectFacetIndex.FacetCounts counts = facetIndex.count(filter);
+
+        // Индекс обновляется после коммита, а записи других инстансов приходят сверкой: он может ненадолго отставать от выборки
+        long total = Math.max(counts.total(), pageable.getOffset() + content.size() + (slice.hasNext() ? 1 : 0));
+        Page<ProjectDto> projects = new PageImpl<>(content, pageable, total);
+
+        return new ProjectFilterResponse(projects, counts.categories(), counts.statuses());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProjectDto> searchProjects(String query, ProjectStatus status, Set<String> categories, Pageable pageable) {
+        if (!StringUtils.hasText(query)) {
+            log.error("Search query is empty");
+            throw new IllegalArgumentException("Search query is empty");
+        }
 
-        return pageEntities.map(projectMapper::mapProjectEntityToDto);
+        int offset = (int) Math.min(pageable.getOffset(), MAX_SEARCH_RESULTS);
+        int limit = Math.min(pageable.getPageSize(), MAX_SEARCH_RESULTS - offset);
+        if (limit <= 0) {
+            return Page.empty(pageable);
+        }
+
+        ProjectSearchIndex.SearchResult result = searchIndex.search(query, status, categories, offset, limit);
+        if (result.ids().isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, result.totalHits());
+        }
+
+        // Порядок релевантности задаёт индекс, из БД - только сами проекты по первичному ключу
+        Map<Long, ProjectEntity> projects = projectRepository.findAllWithCategoriesByIdIn(result.ids()).stream()
+                .collect(Collectors.toMap(ProjectEntity::getId, Function.identity()));
+        List<ProjectDto> content = result.ids().stream()
+                .map(projects::get)
+                .filter(Objects::nonNull)
+                .map(projectMapper::mapProjectEntityToDto)
+                .toList();
+
+        return new PageImpl<>(content, pageable, result.totalHits());
     }
 
     @Override
     @Transactional
     public void assignProjectToFreelancer(Long projectId, String freelancerId) {
-        ProjectEntity project = projectRepository.findById(projectId)
-                .orElseThrow(() -> new RuntimeException("Project not found"));
-
-        UserEntity user = userRepository.findById(freelancerId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        if (!userRepository.existsById(freelancerId)) {
+            log.error("Freelancer {} not found", freelancerId);
+            throw new RuntimeException("User not found");
+        }
 
-        validateProjectAssignment(project, user);
+        // Строка счётчиков создаётся до назначения, иначе начальный подсчёт учёл бы и этот проект
+        freelancerStatsRepository.insertIfAbsent(freelancerId);
 
-        validateFreelancerCapacity(user);
+        // Без чтения и блокировок: условие проверяет сам UPDATE, проигравшие заявки получают 0 строк
+        if (projectRepository.assignIfPending(projectId, freelancerId, LocalDateTime.now()) == 0) {
+            throw assignmentRejected(projectId, freelancerId);
+        }
 
-        project.setFreelancer(user);
-        project.setStatus(ProjectStatus.IN_PROGRESS);
-        project.setTakenAt(LocalDateTime.now());
+        // Лимит проверяется и занимается одним UPDATE; при отказе транзакция откатывает и назначение
+        if (freelancerStatsRepository.incrementInProgressIfBelow(freelancerId, MAX_ACTIVE_PROJECTS) == 0) {
+            log.warn("Freelancer {} has reached maximum capacity of active projects", freelancerId);
+            throw new RuntimeException("Freelancer has reached maximum capacity of active projects");
+        }
 
-        projectRepository.save(project);
+        projectCache.evict(projectId);
+        eventPublisher.publishEvent(new ProjectChangedEvent(this, projectId));
         //todo: сделать уведомление для автора
     }
 
@@ -265,11 +432,15 @@ public class ProjectServiceImpl implements ProjectService {
 
         validateProjectStatus(project);
 
+        ProjectStatus previousStatus = project.getStatus();
         project.setFreelancer(null);
         project.setStatus(ProjectStatus.PENDING);
         project.setTakenAt(null);
 
         projectRepository.save(project);
+        updateFreelancerCounters(freelancerId, previousStatus, ProjectStatus.PENDING);
+        projectCache.evict(projectId);
+        eventPublisher.publishEvent(new ProjectChangedEvent(this, projectId));
     }
 
     @Override
@@ -278,10 +449,10 @@ public class ProjectServiceImpl implements ProjectService {
         ProjectEntity project = projectRepository.findById(projectId)
                 .orElseThrow(() -> new RuntimeException("Project not found"));
 
-        UserEntity currentUser = UserUtils.getCurrentUser()
+        String currentUserId = UserUtils.getCurrentUserId()
                 .orElseThrow(() -> new RuntimeException("User not logged in"));
 
-        if (!project.getAuthor().getId().equals(currentUser.getId())) {
+        if (!project.getAuthor().getId().equals(currentUserId)) {
             log.error("Current user is not the author");
             throw new RuntimeException("Current user is not the author");
         }
@@ -293,10 +464,20 @@ public class ProjectServiceImpl implements ProjectService {
             throw new RuntimeException("Project status already set");
         }
 
+        ProjectStatus previousStatus = project.getStatus();
+        if (project.getFreelancer() != null && status == ProjectStatus.IN_PROGRESS) {
+            // Строка счётчиков создаётся до смены статуса, иначе начальный подсчёт учёл бы и этот проект
+            freelancerStatsRepository.insertIfAbsent(project.getFreelancer().getId());
+        }
         project.setStatus(status);
         ProjectEntity savedProject = projectRepository.save(project);
+        if (project.getFreelancer() != null) {
+            updateFreelancerCounters(project.getFreelancer().getId(), previousStatus, status);
+        }
+        projectCache.evict(projectId);
+        eventPublisher.publishEvent(new ProjectChangedEvent(this, projectId));
 
-        return projectMapper.mapProjectEntityToDto(savedProject);
+        return mapToDto(savedProject);
     }
 
     private void validateProjectStatus(ProjectEntity project) {
@@ -327,30 +508,50 @@ public class ProjectServiceImpl implements ProjectService {
         }
     }
 
-    private void validateFreelancerCapacity(UserEntity freelancer) {
-        long activeProjectsCount = projectRepository
-                .countByFreelancerIdAndStatus(freelancer.getId(), ProjectStatus.IN_PROGRESS);
-
-        if (activeProjectsCount >= MAX_ACTIVE_PROJECTS) {
-            throw new RuntimeException(
-                    "Freelancer has reached maximum capacity of active projects");
+    /**
+     * Счётчики фрилансера по статусам следуют за переходами статуса проекта в той же транзакции
+     *
+     * Переход в IN_PROGRESS занимает слот тем же условным UPDATE, что и назначение, и отклоняется при достигнутом лимите.
+     *
+     * @param to null, если проект удалён
+     */
+    private void updateFreelancerCounters(String freelancerId, ProjectStatus from, ProjectStatus to) {
+        if (from == to) {
+            return;
+        }
+        if (to == ProjectStatus.IN_PROGRESS) {
+            if (freelancerStatsRepository.incrementInProgressIfBelow(freelancerId, MAX_ACTIVE_PROJECTS) == 0) {
+                log.warn("Freelancer {} has reached maximum capacity of active projects", freelancerId);
+                throw new RuntimeException("Freelancer has reached maximum capacity of active projects");
+            }
+            freelancerStatsRepository.moveBetweenStatuses(freelancerId, from != null ? from.name() : null, null);
+            return;
         }
+        freelancerStatsRepository.moveBetweenStatuses(freelancerId,
+                from != null ? from.name() : null,
+                to != null ? to.name() : null);
     }
 
-    private void validateProjectAssignment(ProjectEntity project, UserEntity user) {
-        if (project.getStatus() == ProjectStatus.IN_PROGRESS) {
-            log.error("The project has already status in progress");
-            throw new RuntimeException("The project has already status in progress");
+    // Причина отказа ищется только после неудачного UPDATE, на основном пути проект не читается
+    private RuntimeException assignmentRejected(Long projectId, String freelancerId) {
+        ProjectEntity project = projectRepository.findById(projectId).orElse(null);
+
+        if (project == null) {
+            log.error("Project {} not found", projectId);
+            return new RuntimeException("Project not found");
+        }
+
+        if (project.getAuthor().getId().equals(freelancerId)) {
+            log.error("Author cant take this project");
+            return new RuntimeException("Author cant take this project");
         }
 
         if (project.getFreelancer() != null) {
             log.error("The project has already been assigned to the freelancer");
-            throw new RuntimeException("The project has already been assigned to the freelancer");
+            return new RuntimeException("The project has already been assigned to the freelancer");
         }
 
-        if (project.getAuthor().getId().equals(user.getId())) {
-            log.error("Author cant take this project");
-            throw new RuntimeException("Author cant take this project");
-        }
+        log.error("The project {} is not pending: {}", projectId, project.getStatus());
+        return new RuntimeException("The project is not available for assignment");
     }
 }
@@ -0,0 +1,56 @@
+package com.bolezni.specification;
+
+import com.bolezni.dto.ProjectFilterDto;
+import com.bolezni.model.CategoriesEntity;
+import com.bolezni.model.ProjectEntity;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Условия фильтрации проектов. Каждое условие опирается на индекс: status, price, deadline
+ * и project_categories(category_id); категории проверяются через EXISTS, чтобы не размножать строки JOIN'ом.
+ */
+public final class ProjectSpecifications {
+
+    private ProjectSpecifications() {
+    }
+
+    public static Specification<ProjectEntity> byFilter(ProjectFilterDto filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (filter.statuses() != null && !filter.statuses().isEmpty()) {
+                predicates.add(root.get("status").in(filter.statuses()));
+            }
+            if (filter.minPrice() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("price"), filter.minPrice()));
+            }
+            if (filter.maxPrice() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("price"), filter.maxPrice()));
+            }
+            if (filter.deadlineFrom() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("deadline"), filter.deadlineFrom()));
+            }
+            if (filter.deadlineTo() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("deadline"), filter.deadlineTo()));
+            }
+            if (filter.categories() != null && !filter.categories().isEmpty()) {
+                Subquery<Long> subquery = query.subquery(Long.class);
+                Root<ProjectEntity> project = subquery.from(ProjectEntity.class);
+                Join<ProjectEntity, CategoriesEntity> category = project.join("categories");
+                subquery.select(project.get("id"))
+                        .where(cb.equal(project.get("id"), root.get("id")),
+                                category.get("name").in(filter.categories()));
+                predicates.add(cb.exists(subquery));
+            }
+
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+}
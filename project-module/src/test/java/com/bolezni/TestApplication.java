@@ -0,0 +1,10 @@
+package com.bolezni;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Конфигурация для срезов @DataJpaTest: основной класс приложения лежит в корневом модуле
+ */
+@SpringBootApplication
+public class TestApplication {
+}
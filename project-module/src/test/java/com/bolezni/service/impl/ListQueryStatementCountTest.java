@@ -0,0 +1,166 @@
+package com.bolezni.service.impl;
+
+import com.bolezni.dto.CursorPage;
+import com.bolezni.dto.ProjectFilterDto;
+import com.bolezni.dto.ProjectFilterResponse;
+import com.bolezni.dto.ProjectDto;
+import com.bolezni.dto.ReviewResponseDto;
+import com.bolezni.mapper.ProjectMapperImpl;
+import com.bolezni.mapper.ReviewMapperImpl;
+import com.bolezni.model.CategoriesEntity;
+import com.bolezni.model.ProjectEntity;
+import com.bolezni.model.ReviewEntity;
+import com.bolezni.model.UserEntity;
+import com.bolezni.search.ProjectFacetIndex;
+import com.bolezni.search.ProjectSearchIndex;
+import com.bolezni.service.CategoryDictionary;
+import com.bolezni.service.ProjectCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Число подготовленных запросов на страницу списка не зависит от размера страницы и числа категорий
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ProjectServiceImpl.class, ProjectMapperImpl.class, ReviewedServiceImpl.class, ReviewMapperImpl.class})
+class ListQueryStatementCountTest {
+
+    private static final int PROJECTS = 12;
+    private static final int REVIEWS = 12;
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private ProjectServiceImpl projectService;
+    @Autowired
+    private ReviewedServiceImpl reviewedService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoBean
+    private CategoryDictionary categoryDictionary;
+    @MockitoBean
+    private ProjectCache projectCache;
+    @MockitoBean
+    private ProjectSearchIndex searchIndex;
+    @MockitoBean
+    private ProjectFacetIndex facetIndex;
+
+    private Statistics statistics;
+    private UserEntity reviewed;
+
+    @BeforeEach
+    void setUp() {
+        UserEntity author = persistUser(1);
+        reviewed = persistUser(2);
+
+        List<CategoriesEntity> categories = List.of(
+                entityManager.persist(CategoriesEntity.builder().name("java").build()),
+                entityManager.persist(CategoriesEntity.builder().name("spring").build()),
+                entityManager.persist(CategoriesEntity.builder().name("sql").build()));
+
+        for (int i = 0; i < PROJECTS; i++) {
+            entityManager.persist(ProjectEntity.builder()
+                    .title("Project " + i)
+                    .description("Description")
+                    .price(BigDecimal.TEN)
+                    .author(author)
+                    .categories(Set.copyOf(categories.subList(0, 1 + i % categories.size())))
+                    .build());
+        }
+        for (int i = 0; i < REVIEWS; i++) {
+            entityManager.persist(ReviewEntity.builder()
+                    .reviewer(author)
+                    .reviewedUser(reviewed)
+                    .rating(5)
+                    .comment("Review " + i)
+                    .build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void projectPageUsesRowsCountAndOneCategoryQuery() {
+        Page<ProjectDto> page = projectService.getProjects(PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getContent()).allMatch(project -> !project.categories().isEmpty());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void projectCursorPageUsesRowsAndOneCategoryQuery() {
+        CursorPage<ProjectDto> page = projectService.getProjects(null, PAGE_SIZE);
+
+        assertThat(page.content()).hasSize(PAGE_SIZE);
+        assertThat(page.content()).allMatch(project -> !project.categories().isEmpty());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void filteredProjectPageTakesTotalFromFacetIndex() {
+        when(facetIndex.count(any())).thenReturn(new ProjectFacetIndex.FacetCounts(PROJECTS, Map.of(), Map.of()));
+        ProjectFilterDto filter = new ProjectFilterDto(Set.of("java"), null, null, null, null, null);
+
+        ProjectFilterResponse response = projectService.filterProjects(filter, PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(response.projects().getContent()).hasSize(PAGE_SIZE);
+        assertThat(response.projects().getTotalElements()).isEqualTo(PROJECTS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void reviewPageUsesExistenceCheckRowsAndCount() {
+        Page<ReviewResponseDto> page = reviewedService.getAllReviewsByReviewedUser(
+                reviewed.getId(), PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getTotalElements()).isEqualTo(REVIEWS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void reviewCursorPageUsesOneQuery() {
+        CursorPage<ReviewResponseDto> page = reviewedService.getAllReviewsByReviewedUser(
+                reviewed.getId(), null, PAGE_SIZE);
+
+        assertThat(page.content()).hasSize(PAGE_SIZE);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private UserEntity persistUser(int n) {
+        return entityManager.persist(UserEntity.builder()
+                .firstName("First" + n)
+                .lastName("Last" + n)
+                .username("user" + n)
+                .email("user" + n + "@example.com")
+                .password("password")
+                .build());
+    }
+}
@@ -0,0 +1,213 @@
+package com.bolezni.service.impl;
+
+import com.bolezni.mapper.ProjectMapper;
+import com.bolezni.model.FreelancerStatsEntity;
+import com.bolezni.model.ProjectEntity;
+import com.bolezni.model.ProjectStatus;
+import com.bolezni.model.UserEntity;
+import com.bolezni.repository.FreelancerStatsRepository;
+import com.bolezni.repository.ProjectRepository;
+import com.bolezni.repository.UserRepository;
+import com.bolezni.search.ProjectFacetIndex;
+import com.bolezni.search.ProjectSearchIndex;
+import com.bolezni.service.CategoryDictionary;
+import com.bolezni.service.ProjectCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Одновременные назначения идут через реальные транзакции: тестовая транзакция @DataJpaTest отключена,
+ * данные удаляются после каждого теста
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ProjectServiceImpl.class)
+class ProjectAssignmentConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int MAX_ACTIVE_PROJECTS = 5;
+
+    @Autowired
+    private ProjectServiceImpl projectService;
+    @Autowired
+    private ProjectRepository projectRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private FreelancerStatsRepository freelancerStatsRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private ProjectMapper projectMapper;
+    @MockitoBean
+    private CategoryDictionary categoryDictionary;
+    @MockitoBean
+    private ProjectCache projectCache;
+    @MockitoBean
+    private ProjectSearchIndex searchIndex;
+    @MockitoBean
+    private ProjectFacetIndex facetIndex;
+
+    private final AtomicInteger userSequence = new AtomicInteger();
+
+    @AfterEach
+    void cleanUp() {
+        freelancerStatsRepository.deleteAllInBatch();
+        projectRepository.deleteAllInBatch();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void onlyOneFreelancerGetsPendingProject() throws Exception {
+        UserEntity author = saveUser();
+        Long projectId = saveProject(author, null, ProjectStatus.PENDING).getId();
+        List<String> freelancerIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            freelancerIds.add(saveUser().getId());
+        }
+
+        List<Callable<Void>> tasks = freelancerIds.stream()
+                .<Callable<Void>>map(freelancerId -> () -> {
+                    projectService.assignProjectToFreelancer(projectId, freelancerId);
+                    return null;
+                })
+                .toList();
+        Outcome outcome = runConcurrently(tasks);
+
+        assertThat(outcome.succeeded()).isEqualTo(1);
+        assertThat(outcome.rejected()).isEqualTo(THREADS - 1);
+
+        String assignedTo = inTransaction(() -> projectRepository.findById(projectId).orElseThrow().getFreelancer().getId());
+        assertThat(freelancerIds).contains(assignedTo);
+        assertThat(inProgressCount(assignedTo)).isEqualTo(1);
+        assertThat(freelancerStatsRepository.findById(assignedTo))
+                .map(FreelancerStatsEntity::getInProgressCount)
+                .contains(1);
+    }
+
+    @Test
+    void freelancerNearLimitTakesOnlyOneMoreProject() throws Exception {
+        UserEntity author = saveUser();
+        UserEntity freelancer = saveUser();
+        for (int i = 0; i < MAX_ACTIVE_PROJECTS - 1; i++) {
+            saveProject(author, freelancer, ProjectStatus.IN_PROGRESS);
+        }
+        List<Long> projectIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            projectIds.add(saveProject(author, null, ProjectStatus.PENDING).getId());
+        }
+
+        List<Callable<Void>> tasks = projectIds.stream()
+                .<Callable<Void>>map(projectId -> () -> {
+                    projectService.assignProjectToFreelancer(projectId, freelancer.getId());
+                    return null;
+                })
+                .toList();
+        Outcome outcome = runConcurrently(tasks);
+
+        assertThat(outcome.succeeded()).isEqualTo(1);
+        assertThat(outcome.rejected()).isEqualTo(THREADS - 1);
+        assertThat(outcome.messages()).allMatch(message ->
+                message.equals("Freelancer has reached maximum capacity of active projects"));
+
+        assertThat(inProgressCount(freelancer.getId())).isEqualTo(MAX_ACTIVE_PROJECTS);
+        assertThat(freelancerStatsRepository.findById(freelancer.getId()))
+                .map(FreelancerStatsEntity::getInProgressCount)
+                .contains(MAX_ACTIVE_PROJECTS);
+    }
+
+    private Outcome runConcurrently(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (Callable<Void> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+
+            int succeeded = 0;
+            List<String> messages = new ArrayList<>();
+            for (Future<Void> future : futures) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    messages.add(e.getCause().getMessage());
+                }
+            }
+            return new Outcome(succeeded, messages);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long inProgressCount(String freelancerId) {
+        return inTransaction(() -> projectRepository.findAll().stream()
+                .filter(project -> project.getStatus() == ProjectStatus.IN_PROGRESS)
+                .filter(project -> project.getFreelancer() != null)
+                .filter(project -> project.getFreelancer().getId().equals(freelancerId))
+                .count());
+    }
+
+    private UserEntity saveUser() {
+        int n = userSequence.incrementAndGet();
+        return userRepository.save(UserEntity.builder()
+                .firstName("First" + n)
+                .lastName("Last" + n)
+                .username("user" + n)
+                .email("user" + n + "@example.com")
+                .password("password")
+                .build());
+    }
+
+    private ProjectEntity saveProject(UserEntity author, UserEntity freelancer, ProjectStatus status) {
+        return projectRepository.save(ProjectEntity.builder()
+                .title("Project")
+                .description("Description")
+                .price(BigDecimal.TEN)
+                .author(author)
+                .freelancer(freelancer)
+                .status(status)
+                .build());
+    }
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+
+    private record Outcome(int succeeded, List<String> messages) {
+        int rejected() {
+            return messages.size();
+        }
+    }
+}
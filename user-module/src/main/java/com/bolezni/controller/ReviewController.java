@@ -1,6 +1,7 @@
 package com.bolezni.controller;
 
 import com.bolezni.dto.ApiResponse;
+import com.bolezni.dto.CursorPage;
 import com.bolezni.dto.ReviewCreateDto;
 import com.bolezni.dto.ReviewResponseDto;
 import com.bolezni.dto.ReviewUpdateDto;
@@ -76,6 +77,37 @@ public class ReviewController {
         return ResponseEntity.ok(reviews);
     }
 
+    @GetMapping("/user/all/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<ReviewResponseDto>>> getAllReviewsCurrentUserByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+
+        CursorPage<ReviewResponseDto> reviews = reviewService.getAllReviewsCurrentUser(cursor, size);
+        ApiResponse<CursorPage<ReviewResponseDto>> apiResponse = ApiResponse.<CursorPage<ReviewResponseDto>>builder()
+                .status(true)
+                .data(reviews)
+                .message("The request was successful")
+                .build();
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    @GetMapping("/user/{userId}/reviews/cursor")
+    public ResponseEntity<ApiResponse<CursorPage<ReviewResponseDto>>> getUserReviewsByCursor(
+            @PathVariable(name = "userId") String userId,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "10") int size) {
+
+        CursorPage<ReviewResponseDto> reviews = reviewService.getAllReviewsByReviewedUser(userId, cursor, size);
+        ApiResponse<CursorPage<ReviewResponseDto>> apiResponse = ApiResponse.<CursorPage<ReviewResponseDto>>builder()
+                .status(true)
+                .data(reviews)
+                .message("The request was successful")
+                .build();
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
     @PatchMapping("/{id}/status/{status}")
     public ResponseEntity<ReviewResponseDto> updateReviewStatus(
             @PathVariable(name = "id") Long id,
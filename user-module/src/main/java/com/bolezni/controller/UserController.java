@@ -2,23 +2,36 @@ package com.bolezni.controller;
 
 import com.bolezni.dto.ApiResponse;
 import com.bolezni.dto.ChangePasswordDto;
+import com.bolezni.dto.FreelancerStatsDto;
 import com.bolezni.dto.UserResponseDto;
 import com.bolezni.dto.UserUpdateDto;
 import com.bolezni.service.UserService;
+import com.bolezni.utils.ETagUtils;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/v1/user")
 public class UserController {
 
+    private static final String ETAG_TYPE = "user";
+
     private final UserService userService;
 
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<UserResponseDto>> getUser(@PathVariable(name = "id") String id) {
+    public ResponseEntity<ApiResponse<UserResponseDto>> getUser(@PathVariable(name = "id") String id, WebRequest request) {
+        // 304 отдаётся по версии из БД, до загрузки и сериализации пользователя
+        String eTag = ETagUtils.of(ETAG_TYPE, id, userService.getUserVersion(id));
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+
         UserResponseDto dto = userService.getUserById(id);
 
         ApiResponse<UserResponseDto> apiResponse = ApiResponse.<UserResponseDto>builder()
@@ -27,7 +40,7 @@ public class UserController {
                 .message("Successful get user by id")
                 .build();
 
-        return ResponseEntity.ok(apiResponse);
+        return ResponseEntity.ok().eTag(eTag).body(apiResponse);
     }
 
     @GetMapping
@@ -42,10 +55,25 @@ public class UserController {
         return ResponseEntity.ok(apiResponse);
     }
 
+    @GetMapping("/{id}/project-stats")
+    public ResponseEntity<ApiResponse<FreelancerStatsDto>> getProjectStats(@PathVariable(name = "id") String id) {
+        FreelancerStatsDto dto = userService.getProjectStats(id);
+
+        ApiResponse<FreelancerStatsDto> apiResponse = ApiResponse.<FreelancerStatsDto>builder()
+                .status(true)
+                .data(dto)
+                .message("Successful get user project stats")
+                .build();
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<UserResponseDto>> updateUserInfo(@PathVariable(name = "id") String id,
-                                                                       @RequestBody UserUpdateDto userUpdateDto) {
-        UserResponseDto dto = userService.updateUserInfo(id, userUpdateDto);
+                                                                       @RequestBody UserUpdateDto userUpdateDto,
+                                                                       @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long expectedVersion = ETagUtils.expectedVersion(ifMatch, ETAG_TYPE, id);
+        UserResponseDto dto = userService.updateUserInfo(id, userUpdateDto, expectedVersion);
 
         ApiResponse<UserResponseDto> apiResponse = ApiResponse.<UserResponseDto>builder()
                 .status(true)
@@ -53,7 +81,9 @@ public class UserController {
                 .message("Successful update user info")
                 .build();
 
-        return ResponseEntity.ok(apiResponse);
+        return ResponseEntity.ok()
+                .eTag(ETagUtils.of(ETAG_TYPE, id, dto.version()))
+                .body(apiResponse);
     }
 
     @PostMapping("/change-password")
@@ -68,6 +98,32 @@ public class UserController {
         return ResponseEntity.ok(apiResponse);
     }
 
+    @PostMapping("/{id}/lock")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<ApiResponse<Void>> lockUser(@PathVariable(name = "id") String id) {
+        userService.setUserLocked(id, true);
+
+        ApiResponse<Void> apiResponse = ApiResponse.<Void>builder()
+                .status(true)
+                .message("Successful lock user")
+                .build();
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
+    @PostMapping("/{id}/unlock")
+    @PreAuthorize("hasAuthority('ADMIN')")
+    public ResponseEntity<ApiResponse<Void>> unlockUser(@PathVariable(name = "id") String id) {
+        userService.setUserLocked(id, false);
+
+        ApiResponse<Void> apiResponse = ApiResponse.<Void>builder()
+                .status(true)
+                .message("Successful unlock user")
+                .build();
+
+        return ResponseEntity.ok(apiResponse);
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<ApiResponse<UserResponseDto>> deleteCurrentUser(@PathVariable(name = "id") String id) {
         userService.deleteUserById(id);
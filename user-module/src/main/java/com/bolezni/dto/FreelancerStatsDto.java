@@ -0,0 +1,9 @@
+package com.bolezni.dto;
+
+public record FreelancerStatsDto(
+        String userId,
+        int inProgress,
+        int completed,
+        int cancelled
+) {
+}
@@ -1,5 +1,7 @@
 package com.bolezni.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public record UserResponseDto(
         String id,
         String firstName,
@@ -8,6 +10,8 @@ public record UserResponseDto(
         String email,
         boolean isVerified,
         String provider,
-        String providerId
+        String providerId,
+        // Версия для ETag, в теле ответа не отдаётся
+        @JsonIgnore Long version
         ) {
 }
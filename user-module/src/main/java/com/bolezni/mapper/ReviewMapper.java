@@ -3,6 +3,7 @@ package com.bolezni.mapper;
 import com.bolezni.dto.ReviewResponseDto;
 import com.bolezni.model.ReviewEntity;
 import com.bolezni.model.ReviewStatus;
+import com.bolezni.repository.projection.ReviewRow;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
@@ -15,6 +16,9 @@ public interface ReviewMapper {
     @Mapping(target = "reviewedUserId", source = "reviewedUser.id")
     ReviewResponseDto mapToDto(ReviewEntity entity);
 
+    @Mapping(target = "status", qualifiedByName = "mapStatusToString")
+    ReviewResponseDto mapRowToDto(ReviewRow row);
+
     @Named("mapStatusToString")
     default String mapStatusToString(ReviewStatus status) {
         return status.name();
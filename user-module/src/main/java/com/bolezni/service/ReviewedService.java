@@ -1,5 +1,6 @@
 package com.bolezni.service;
 
+import com.bolezni.dto.CursorPage;
 import com.bolezni.dto.ReviewCreateDto;
 import com.bolezni.dto.ReviewResponseDto;
 import com.bolezni.dto.ReviewUpdateDto;
@@ -17,6 +18,10 @@ public interface ReviewedService {
 
     Page<ReviewResponseDto> getAllReviewsByReviewedUser(String reviewedId, Pageable pageable);
 
+    CursorPage<ReviewResponseDto> getAllReviewsCurrentUser(String cursor, int size);
+
+    CursorPage<ReviewResponseDto> getAllReviewsByReviewedUser(String reviewedId, String cursor, int size);
+
     ReviewResponseDto updateReviewStatus(Long id, String status);
 
     void deleteReview(Long id);
@@ -1,6 +1,7 @@
 package com.bolezni.service;
 
 import com.bolezni.dto.ChangePasswordDto;
+import com.bolezni.dto.FreelancerStatsDto;
 import com.bolezni.dto.UserResponseDto;
 import com.bolezni.dto.UserUpdateDto;
 
@@ -9,9 +10,18 @@ public interface UserService {
 
     UserResponseDto getAuthenticationUser();
 
-    UserResponseDto updateUserInfo(String id, UserUpdateDto userUpdateDto);
+    long getUserVersion(String id);
+
+    /**
+     * @param expectedVersion версия из If-Match или null, если клиент её не передал
+     */
+    UserResponseDto updateUserInfo(String id, UserUpdateDto userUpdateDto, Long expectedVersion);
 
     void deleteUserById(String id);
 
     void changePassword(ChangePasswordDto passwordDto);
+
+    void setUserLocked(String id, boolean locked);
+
+    FreelancerStatsDto getProjectStats(String id);
 }
@@ -1,5 +1,6 @@
 package com.bolezni.service.impl;
 
+import com.bolezni.dto.CursorPage;
 import com.bolezni.dto.ReviewCreateDto;
 import com.bolezni.dto.ReviewResponseDto;
 import com.bolezni.dto.ReviewUpdateDto;
@@ -7,18 +8,23 @@ import com.bolezni.mapper.ReviewMapper;
 import com.bolezni.model.ReviewEntity;
 import com.bolezni.model.ReviewStatus;
 import com.bolezni.model.UserEntity;
+import com.bolezni.repository.KeysetCursor;
 import com.bolezni.repository.ReviewerRepository;
 import com.bolezni.repository.UserRepository;
+import com.bolezni.repository.projection.ReviewRow;
 import com.bolezni.service.ReviewedService;
 import com.bolezni.utils.UpdateFieldUtils;
 import com.bolezni.utils.UserUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -35,7 +41,7 @@ public class ReviewedServiceImpl implements ReviewedService {
             throw new IllegalArgumentException("reviewCreateDto is null");
         }
 
-        UserEntity currentUser = UserUtils.getCurrentUser()
+        UserEntity currentUser = UserUtils.getCurrentUserReference(userRepository)
                 .orElseThrow(() -> new RuntimeException("Unauthorized"));
 
         if (reviewerRepository.existsByReviewedUserIdAndReviewerId(reviewCreateDto.reviewedId(), currentUser.getId())) {
@@ -78,10 +84,10 @@ public class ReviewedServiceImpl implements ReviewedService {
         ReviewEntity review = reviewerRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Reviewer not found"));
 
-        UserEntity currentUser = UserUtils.getCurrentUser()
+        String currentUserId = UserUtils.getCurrentUserId()
                 .orElseThrow(() -> new RuntimeException("Unauthorized or not found"));
 
-        reviewerIdMatch(review.getReviewer().getId(), currentUser.getId());
+        reviewerIdMatch(review.getReviewer().getId(), currentUserId);
 
         boolean hasChanged = updateFields(review, reviewUpdateDto);
 
@@ -102,34 +108,66 @@ public class ReviewedServiceImpl implements ReviewedService {
 
     @Override
     public Page<ReviewResponseDto> getAllReviewsCurrentUser(Pageable pageable) {
-        UserEntity currentUser = UserUtils.getCurrentUser()
+        String currentUserId = UserUtils.getCurrentUserId()
                 .orElseThrow(() -> new RuntimeException("Unauthorized or not found"));
 
-        Page<ReviewEntity> reviews = reviewerRepository.findAllByReviewerId(pageable, currentUser.getId());
+        Page<ReviewRow> reviews = reviewerRepository.findRowsByReviewerId(currentUserId, pageable);
 
-        return reviews.map(reviewMapper::mapToDto);
+        return reviews.map(reviewMapper::mapRowToDto);
     }
 
     @Override
     public Page<ReviewResponseDto> getAllReviewsByReviewedUser(String reviewedId, Pageable pageable) {
-        UserEntity reviewed = userRepository.findById(reviewedId)
-                .orElseThrow(() -> new RuntimeException("Reviewed user not found"));
+        if (!userRepository.existsById(reviewedId)) {
+            log.error("Reviewed user not found: {}", reviewedId);
+            throw new RuntimeException("Reviewed user not found");
+        }
+
+        Page<ReviewRow> reviewPage = reviewerRepository.findRowsByReviewedUserId(reviewedId, pageable);
+
+        return reviewPage.map(reviewMapper::mapRowToDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ReviewResponseDto> getAllReviewsCurrentUser(String cursor, int size) {
+        String currentUserId = UserUtils.getCurrentUserId()
+                .orElseThrow(() -> new RuntimeException("Unauthorized or not found"));
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
 
-        Page<ReviewEntity> reviewPage = reviewerRepository.findAllByReviewedUserId(pageable, reviewed.getId());
+        List<ReviewRow> rows = reviewerRepository.findPageByReviewerIdBefore(
+                currentUserId, position.createdAt(), position.id(), Limit.of(pageSize + 1));
+
+        return CursorPage.of(rows, pageSize, this::cursorOf, reviewMapper::mapRowToDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ReviewResponseDto> getAllReviewsByReviewedUser(String reviewedId, String cursor, int size) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        int pageSize = CursorPage.clampSize(size);
+
+        List<ReviewRow> rows = reviewerRepository.findPageByReviewedUserIdBefore(
+                reviewedId, position.createdAt(), position.id(), Limit.of(pageSize + 1));
+
+        return CursorPage.of(rows, pageSize, this::cursorOf, reviewMapper::mapRowToDto);
+    }
 
-        return reviewPage.map(reviewMapper::mapToDto);
+    private KeysetCursor cursorOf(ReviewRow review) {
+        return new KeysetCursor(review.createdAt(), review.id());
     }
 
     @Override
     @Transactional
     public ReviewResponseDto updateReviewStatus(Long id, String status) {
-        UserEntity currentUser = UserUtils.getCurrentUser()
+        String currentUserId = UserUtils.getCurrentUserId()
                 .orElseThrow(() -> new RuntimeException("Unauthorized or not found"));
 
         ReviewEntity review = reviewerRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
 
-        reviewerIdMatch(review.getReviewer().getId(), currentUser.getId());
+        reviewerIdMatch(review.getReviewer().getId(), currentUserId);
 
         review.setStatus(ReviewStatus.valueOf(status));
 
@@ -141,13 +179,13 @@ public class ReviewedServiceImpl implements ReviewedService {
     @Override
     @Transactional
     public void deleteReview(Long id) {
-        UserEntity currentUser = UserUtils.getCurrentUser()
+        String currentUserId = UserUtils.getCurrentUserId()
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         ReviewEntity reviewToDelete = reviewerRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
 
-        reviewerIdMatch(reviewToDelete.getReviewer().getId(), currentUser.getId());
+        reviewerIdMatch(reviewToDelete.getReviewer().getId(), currentUserId);
 
         reviewerRepository.deleteById(reviewToDelete.getId());
     }
@@ -1,20 +1,29 @@
 package com.bolezni.service.impl;
 
 import com.bolezni.dto.ChangePasswordDto;
+import com.bolezni.dto.FreelancerStatsDto;
 import com.bolezni.dto.UserResponseDto;
 import com.bolezni.dto.UserUpdateDto;
+import com.bolezni.events.UserChangedEvent;
 import com.bolezni.mapper.UserMapper;
 import com.bolezni.model.UserEntity;
+import com.bolezni.repository.FreelancerStatsRepository;
 import com.bolezni.repository.UserRepository;
+import com.bolezni.security.SecurityVersionService;
+import com.bolezni.security.jwt.TokenRevocationService;
 import com.bolezni.service.UserService;
 import com.bolezni.utils.UpdateFieldUtils;
 import com.bolezni.utils.UserUtils;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
 
 @Slf4j
 @Service
@@ -22,8 +31,12 @@ import org.springframework.util.StringUtils;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final FreelancerStatsRepository freelancerStatsRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
+    private final SecurityVersionService securityVersionService;
+    private final TokenRevocationService tokenRevocationService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public UserResponseDto getUserById(String id) {
@@ -33,24 +46,38 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserResponseDto getAuthenticationUser() {
-        UserEntity user = UserUtils.getCurrentUser()
+        UserEntity user = UserUtils.getCurrentUserId()
+                .flatMap(userRepository::findById)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         return userMapper.userToUserResponseDto(user);
     }
 
+    @Override
+    public long getUserVersion(String id) {
+        return userRepository.findVersionById(id).orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
     @Override
     @Transactional
-    public UserResponseDto updateUserInfo(String id, UserUpdateDto userUpdateDto) {
+    public UserResponseDto updateUserInfo(String id, UserUpdateDto userUpdateDto, Long expectedVersion) {
         if (userUpdateDto == null) {
             log.error("UserUpdateDto is null");
             throw new RuntimeException("UserUpdateDto is null");
         }
 
-        UserEntity currentUser = UserUtils.getCurrentUser()
+        String currentUserId = UserUtils.getCurrentUserId()
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        UserUtils.isCurrentUser(id, currentUserId);
+
+        UserEntity currentUser = userRepository.findById(currentUserId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        UserUtils.isCurrentUser(id, currentUser.getId());
+        if (expectedVersion != null && !expectedVersion.equals(currentUser.getVersion())) {
+            log.warn("User {} version mismatch: expected {}, actual {}", id, expectedVersion, currentUser.getVersion());
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "User was modified");
+        }
 
         boolean isChanged = updateUserInfo(currentUser, userUpdateDto);
 
@@ -59,7 +86,14 @@ public class UserServiceImpl implements UserService {
             return userMapper.userToUserResponseDto(currentUser);
         }
 
-        UserEntity savedUser = userRepository.save(currentUser);
+        UserEntity savedUser;
+        try {
+            savedUser = userRepository.saveAndFlush(currentUser);
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Concurrent update of user {}", id);
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "User was modified");
+        }
+        eventPublisher.publishEvent(new UserChangedEvent(this, savedUser.getUsername()));
         log.info("User has been saved with id {}", savedUser.getId());
         return userMapper.userToUserResponseDto(savedUser);
     }
@@ -75,9 +109,12 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public void deleteUserById(String id) {
         if (StringUtils.hasText(id)) {
-            UserEntity currentUser = UserUtils.getCurrentUser().orElseThrow(() -> new RuntimeException("User not found"));
-            UserUtils.isCurrentUser(id, currentUser.getId());
-            userRepository.deleteById(id);
+            String currentUserId = UserUtils.getCurrentUserId().orElseThrow(() -> new RuntimeException("User not found"));
+            UserUtils.isCurrentUser(id, currentUserId);
+            UserEntity user = userRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("User not found"));
+            userRepository.delete(user);
+            eventPublisher.publishEvent(new UserChangedEvent(this, user.getUsername()));
         } else {
             log.error("User id is null");
             throw new RuntimeException("User id is null");
@@ -92,7 +129,8 @@ public class UserServiceImpl implements UserService {
             throw new IllegalArgumentException("resetPasswordDto is null");
         }
 
-        UserEntity user = UserUtils.getCurrentUser()
+        UserEntity user = UserUtils.getCurrentUserId()
+                .flatMap(userRepository::findById)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         String oldPassword = resetPasswordDto.oldPassword();
@@ -112,5 +150,42 @@ public class UserServiceImpl implements UserService {
 
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        securityVersionService.bump(user.getId());
+        eventPublisher.publishEvent(new UserChangedEvent(this, user.getUsername()));
+    }
+
+    @Override
+    @Transactional
+    public void setUserLocked(String id, boolean locked) {
+        UserEntity user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        if (user.isLocked() == locked) {
+            return;
+        }
+
+        user.setLocked(locked);
+        userRepository.save(user);
+        if (locked) {
+            long securityVersion = securityVersionService.bump(user.getId());
+            tokenRevocationService.revokeAllForUser(user.getId(), securityVersion);
+        }
+        eventPublisher.publishEvent(new UserChangedEvent(this, user.getUsername()));
+        log.info("User {} locked: {}", user.getId(), locked);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public FreelancerStatsDto getProjectStats(String id) {
+        if (!userRepository.existsById(id)) {
+            log.error("User {} not found", id);
+            throw new RuntimeException("User not found");
+        }
+
+        // Строка счётчиков создаётся только при назначении; без неё у пользователя нет проектов в работе
+        return freelancerStatsRepository.findById(id)
+                .map(stats -> new FreelancerStatsDto(id,
+                        stats.getInProgressCount(), stats.getCompletedCount(), stats.getCancelledCount()))
+                .orElseGet(() -> new FreelancerStatsDto(id, 0, 0, 0));
     }
 }
@@ -0,0 +1,40 @@
+package com.bolezni.utils;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Сильные ETag вида "type-id-version" по колонке @Version сущности
+ */
+public final class ETagUtils {
+
+    private ETagUtils() {
+    }
+
+    public static String of(String type, Object id, long version) {
+        return "\"" + type + "-" + id + "-" + version + "\"";
+    }
+
+    /**
+     * Разбирает заголовок If-Match
+     *
+     * @return ожидаемая версия или null, если заголовка нет или он равен "*"
+     * @throws ResponseStatusException 412, если ETag не относится к этому ресурсу или слабый
+     */
+    public static Long expectedVersion(String ifMatch, String type, Object id) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String prefix = "\"" + type + "-" + id + "-";
+        String tag = ifMatch.trim();
+        if (!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "ETag does not match");
+        }
+        try {
+            return Long.parseLong(tag.substring(prefix.length(), tag.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "ETag does not match");
+        }
+    }
+}
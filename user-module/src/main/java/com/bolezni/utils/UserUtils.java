@@ -1,11 +1,11 @@
 package com.bolezni.utils;
 
 import com.bolezni.model.UserEntity;
-import com.bolezni.security.CustomUserDetails;
+import com.bolezni.repository.UserRepository;
+import com.bolezni.security.UserPrincipal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Optional;
 
@@ -13,19 +13,42 @@ import java.util.Optional;
 public final class UserUtils {
     private UserUtils() {}
 
-    public static Optional<UserEntity> getCurrentUser() {
+    public static Optional<UserPrincipal> getCurrentPrincipal() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication.isAuthenticated()) {
-            Object principal = authentication.getPrincipal();
-            if (principal instanceof UserDetails) {
-                return Optional.of(((CustomUserDetails) principal).getUser());
-            } else if (principal instanceof UserEntity) {
-                return Optional.of((UserEntity) principal);
-            }
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return Optional.empty();
+        }
+
+        return authentication.getPrincipal() instanceof UserPrincipal principal
+                ? Optional.of(principal)
+                : Optional.empty();
+    }
+
+    /**
+     * Возвращает id текущего пользователя для любого типа principal, в том числе собранного из claims токена
+     */
+    public static Optional<String> getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return Optional.empty();
+        }
+
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof UserPrincipal userPrincipal) {
+            return Optional.of(userPrincipal.id());
+        } else if (principal instanceof UserEntity userEntity) {
+            return Optional.of(userEntity.getId());
         }
         return Optional.empty();
     }
 
+    /**
+     * Ссылка на текущего пользователя без обращения к БД, достаточная для связей вроде автора или владельца
+     */
+    public static Optional<UserEntity> getCurrentUserReference(UserRepository userRepository) {
+        return getCurrentUserId().map(userRepository::getReferenceById);
+    }
+
     public static void isCurrentUser(String userId, String currentUserId) {
         if(!userId.equals(currentUserId)) {
             log.warn("User is miss math");